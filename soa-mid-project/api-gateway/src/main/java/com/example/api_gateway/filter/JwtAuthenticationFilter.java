@@ -0,0 +1,153 @@
+package com.example.api_gateway.filter;
+
+import com.example.common_library.cache.TtlCache;
+import com.example.common_library.security.GatewayHeaders;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+
+/**
+ * Kiểm tra JWT ngay tại gateway rồi chuyển id, username, role xuống service phía sau qua header.
+ * Request không có token vẫn được chuyển tiếp (login, đăng ký...), chỉ không có header người dùng.
+ * Token sai hoặc hết hạn bị trả về 401. Token đã kiểm tra được cache theo SHA-256 của token.
+ * Kèm theo header người dùng là secret nội bộ (gateway.internal-secret) để service phía sau
+ * phân biệt request đi qua gateway với request gọi thẳng vào cổng của service.
+ */
+@Component
+public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtParser jwtParser;
+    private final TtlCache<String, VerifiedToken> verifiedTokens;
+    private final String internalSecret;
+
+    public JwtAuthenticationFilter(@Value("${jwt.secret}") String secret,
+                                   @Value("${gateway.internal-secret:}") String internalSecret,
+                                   @Value("${gateway.jwt.cache-max-size:10000}") int cacheMaxSize,
+                                   @Value("${gateway.jwt.cache-ttl-seconds:300}") long cacheTtlSeconds) {
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .build();
+        this.verifiedTokens = new TtlCache<>(cacheMaxSize, Duration.ofSeconds(cacheTtlSeconds));
+        this.internalSecret = internalSecret;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String authHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+
+        VerifiedToken verified = null;
+        if (authHeader != null && authHeader.startsWith(BEARER_PREFIX)) {
+            verified = verify(authHeader.substring(BEARER_PREFIX.length()).trim());
+            if (verified == null) {
+                return unauthorized(exchange.getResponse());
+            }
+        }
+
+        // Luôn xóa header người dùng do client tự gửi, chỉ gateway được phép đặt các header này
+        final VerifiedToken user = verified;
+        ServerHttpRequest forwarded = request.mutate().headers(headers -> {
+            headers.remove(GatewayHeaders.USER_ID);
+            headers.remove(GatewayHeaders.USERNAME);
+            headers.remove(GatewayHeaders.ROLE);
+            headers.remove(GatewayHeaders.SECRET);
+            if (user != null) {
+                if (!internalSecret.isBlank()) {
+                    headers.set(GatewayHeaders.SECRET, internalSecret);
+                }
+                if (user.userId != null) {
+                    headers.set(GatewayHeaders.USER_ID, String.valueOf(user.userId));
+                }
+                headers.set(GatewayHeaders.USERNAME, user.username);
+                if (user.role != null) {
+                    headers.set(GatewayHeaders.ROLE, user.role);
+                }
+            }
+        }).build();
+
+        return chain.filter(exchange.mutate().request(forwarded).build());
+    }
+
+    // Chạy trước các filter định tuyến
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    private VerifiedToken verify(String token) {
+        String key = sha256(token);
+        VerifiedToken cached = verifiedTokens.get(key);
+        if (cached != null && cached.expiresAtMillis > System.currentTimeMillis()) {
+            return cached;
+        }
+
+        try {
+            Claims claims = jwtParser.parseClaimsJws(token).getBody();
+            VerifiedToken verified = new VerifiedToken(
+                    claims.get("id", Long.class),
+                    claims.getSubject(),
+                    claims.get("role", String.class),
+                    claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE);
+            verifiedTokens.put(key, verified);
+            return verified;
+        } catch (JwtException | IllegalArgumentException e) {
+            verifiedTokens.invalidate(key);
+            return null;
+        }
+    }
+
+    private Mono<Void> unauthorized(ServerHttpResponse response) {
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        byte[] body = "{\"status\":401,\"errorCode\":\"INVALID_CREDENTIALS\",\"message\":\"Invalid or expired token\"}"
+                .getBytes(StandardCharsets.UTF_8);
+        DataBuffer buffer = response.bufferFactory().wrap(body);
+        return response.writeWith(Mono.just(buffer));
+    }
+
+    private static String sha256(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class VerifiedToken {
+        private final Long userId;
+        private final String username;
+        private final String role;
+        private final long expiresAtMillis;
+
+        private VerifiedToken(Long userId, String username, String role, long expiresAtMillis) {
+            this.userId = userId;
+            this.username = username;
+            this.role = role;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.common_library.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStats {
+    private long hits;
+    private long misses;
+    private long evictions;     // Bị đẩy ra do vượt quá kích thước tối đa
+    private long expirations;   // Bị bỏ do hết TTL
+    private int size;
+    private int maxSize;
+    private double hitRate;
+}
@@ -0,0 +1,17 @@
+package com.example.common_library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceBatchEntry {
+    private Long userId;
+    private Long paymentId;     // Bắt buộc với RESERVE và RELEASE
+    private BigDecimal amount;
+    private BalanceOperation operation;
+}
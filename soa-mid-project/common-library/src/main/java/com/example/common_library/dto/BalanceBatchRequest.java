@@ -0,0 +1,14 @@
+package com.example.common_library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceBatchRequest {
+    private List<BalanceBatchEntry> entries;
+}
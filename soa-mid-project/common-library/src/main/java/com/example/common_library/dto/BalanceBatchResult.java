@@ -0,0 +1,18 @@
+package com.example.common_library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Kết quả của từng entry, cùng thứ tự với danh sách entries trong request
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceBatchResult {
+    private int index;
+    private Long userId;
+    private BalanceOperation operation;
+    private boolean success;
+    private String errorCode;   // Tên ErrorCode khi thất bại, ví dụ INSUFFICIENT_BALANCE
+    private String message;
+}
@@ -0,0 +1,7 @@
+package com.example.common_library.dto;
+
+public enum BalanceOperation {
+    RESERVE,    // Tạo reservation cho payment
+    RELEASE,    // Giải phóng reservation của payment
+    DEDUCT      // Trừ số dư theo reservation của payment
+}
@@ -12,4 +12,5 @@ import java.math.BigDecimal;
 public class DeductBalanceRequest {
     private String username;
     private BigDecimal amount;
+    private Long paymentId;     // Reservation gắn với payment này
 }
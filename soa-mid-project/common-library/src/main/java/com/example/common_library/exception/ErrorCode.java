@@ -42,7 +42,13 @@ public enum ErrorCode {
     PAYMENT_PROCESSING_ERROR(500, "Error during payment processing"),
     PAYMENT_IN_PROGRESS(409, "Học phí đang được xử lý thanh toán"),
 
-    OTP_MAX_ATTEMPTS_EXCEEDED(401, "Nhập sai OTP quá số lần cho phép");
+    OTP_MAX_ATTEMPTS_EXCEEDED(401, "Nhập sai OTP quá số lần cho phép"),
+
+    // Reservation số dư theo payment
+    RESERVATION_NOT_FOUND(404, "Balance reservation not found"),
+    RESERVATION_CONFLICT(409, "Balance reservation is not in a valid state"),
+    BALANCE_CONFLICT(409, "Balance was updated concurrently, please retry"),
+    SERVICE_BUSY(503, "Service is busy, please retry");
 
     private final int status;
     private final String message;
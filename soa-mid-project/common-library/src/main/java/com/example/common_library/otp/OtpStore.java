@@ -0,0 +1,26 @@
+package com.example.common_library.otp;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+
+public interface OtpStore {
+
+    // Lưu OTP kèm thời gian hết hạn trong một lệnh, đồng thời xóa bộ đếm sai của mã cũ
+    void save(String id, String otpCode, Duration ttl);
+
+    // Lưu nhiều OTP (id -> mã) trong một round trip
+    void saveAll(Map<String, String> otpCodes, Duration ttl);
+
+    /**
+     * So sánh OTP, đếm số lần sai và xóa mã khi đúng hoặc khi sai quá maxAttempts lần,
+     * tất cả trong một thao tác nguyên tử.
+     * maxAttempts <= 0 nghĩa là không giới hạn số lần thử.
+     */
+    OtpVerificationResult verify(String id, String otpCode, int maxAttempts);
+
+    void remove(String id);
+
+    // Xóa nhiều OTP cùng bộ đếm sai bằng một lệnh DEL
+    void removeAll(Collection<String> ids);
+}
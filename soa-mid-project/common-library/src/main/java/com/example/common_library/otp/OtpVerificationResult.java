@@ -0,0 +1,8 @@
+package com.example.common_library.otp;
+
+public enum OtpVerificationResult {
+    VALID,              // Đúng OTP, mã đã bị xóa (chỉ dùng được một lần)
+    INVALID,            // Sai OTP, còn lượt thử
+    EXPIRED,            // OTP không tồn tại hoặc đã hết hạn
+    TOO_MANY_ATTEMPTS   // Sai quá số lần cho phép, mã đã bị xóa
+}
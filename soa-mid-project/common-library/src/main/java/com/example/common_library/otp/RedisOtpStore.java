@@ -0,0 +1,131 @@
+package com.example.common_library.otp;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lưu OTP trong Redis. Việc ghi và kiểm tra OTP đều chạy bằng Lua script phía Redis nên chỉ tốn
+ * một round trip trên connection dùng chung và không bị race khi nhiều request cùng gửi OTP cho một mã.
+ * Không dùng pipeline: khi không có pool, Lettuce mở connection riêng cho mỗi pipeline, tốn nhiều round trip hơn.
+ */
+public class RedisOtpStore implements OtpStore {
+
+    // KEYS[1] = OTP, KEYS[2] = bộ đếm số lần sai; ARGV[1] = OTP người dùng nhập, ARGV[2] = số lần sai tối đa
+    // Trả về: 0 = hết hạn, 1 = đúng, 2 = sai, 3 = sai quá số lần
+    private static final String VERIFY_SCRIPT =
+        "local stored = redis.call('GET', KEYS[1]) " +
+        "if not stored then return 0 end " +
+        "if stored == ARGV[1] then " +
+        "  redis.call('DEL', KEYS[1], KEYS[2]) " +
+        "  return 1 " +
+        "end " +
+        "local attempts = redis.call('INCR', KEYS[2]) " +
+        "local ttl = redis.call('PTTL', KEYS[1]) " +
+        "if ttl > 0 then redis.call('PEXPIRE', KEYS[2], ttl) end " +
+        "local maxAttempts = tonumber(ARGV[2]) " +
+        "if maxAttempts > 0 and attempts >= maxAttempts then " +
+        "  redis.call('DEL', KEYS[1], KEYS[2]) " +
+        "  return 3 " +
+        "end " +
+        "return 2";
+
+    private static final DefaultRedisScript<Long> VERIFY =
+        new DefaultRedisScript<>(VERIFY_SCRIPT, Long.class);
+
+    // KEYS = OTP 1, bộ đếm 1, OTP 2, bộ đếm 2...; ARGV[1] = TTL (ms), ARGV[2..] = OTP theo thứ tự key
+    // SET ... PX và xóa bộ đếm sai của mã cũ, key không bao giờ tồn tại mà thiếu TTL
+    private static final String SAVE_SCRIPT =
+        "for i = 2, #ARGV do " +
+        "  redis.call('SET', KEYS[2 * i - 3], ARGV[i], 'PX', ARGV[1]) " +
+        "  redis.call('DEL', KEYS[2 * i - 2]) " +
+        "end " +
+        "return #ARGV - 1";
+
+    private static final DefaultRedisScript<Long> SAVE =
+        new DefaultRedisScript<>(SAVE_SCRIPT, Long.class);
+
+    // Số OTP tối đa trong một lần chạy script, tránh chặn Redis quá lâu với lô lớn
+    private static final int SAVE_CHUNK_SIZE = 500;
+
+    private final StringRedisTemplate redisTemplate;
+    private final String otpPrefix;
+    private final String attemptPrefix;
+
+    public RedisOtpStore(StringRedisTemplate redisTemplate, String otpPrefix, String attemptPrefix) {
+        this.redisTemplate = redisTemplate;
+        this.otpPrefix = otpPrefix;
+        this.attemptPrefix = attemptPrefix;
+    }
+
+    @Override
+    public void save(String id, String otpCode, Duration ttl) {
+        saveAll(Map.of(id, otpCode), ttl);
+    }
+
+    // Mỗi lô tối đa SAVE_CHUNK_SIZE OTP được ghi bằng một lần chạy script (một round trip)
+    @Override
+    public void saveAll(Map<String, String> otpCodes, Duration ttl) {
+        String ttlMs = String.valueOf(ttl.toMillis());
+        List<String> keys = new ArrayList<>();
+        List<String> args = new ArrayList<>();
+        for (Map.Entry<String, String> entry : otpCodes.entrySet()) {
+            if (args.isEmpty()) {
+                args.add(ttlMs);
+            }
+            keys.add(otpPrefix + entry.getKey());
+            keys.add(attemptPrefix + entry.getKey());
+            args.add(entry.getValue());
+            if (args.size() - 1 == SAVE_CHUNK_SIZE) {
+                redisTemplate.execute(SAVE, keys, args.toArray());
+                keys.clear();
+                args.clear();
+            }
+        }
+        if (!args.isEmpty()) {
+            redisTemplate.execute(SAVE, keys, args.toArray());
+        }
+    }
+
+    @Override
+    public OtpVerificationResult verify(String id, String otpCode, int maxAttempts) {
+        Long result = redisTemplate.execute(VERIFY,
+            Arrays.asList(otpPrefix + id, attemptPrefix + id),
+            otpCode == null ? "" : otpCode,
+            String.valueOf(maxAttempts));
+        if (result == null || result == 0) {
+            return OtpVerificationResult.EXPIRED;
+        }
+        if (result == 1) {
+            return OtpVerificationResult.VALID;
+        }
+        if (result == 3) {
+            return OtpVerificationResult.TOO_MANY_ATTEMPTS;
+        }
+        return OtpVerificationResult.INVALID;
+    }
+
+    @Override
+    public void remove(String id) {
+        redisTemplate.delete(Arrays.asList(otpPrefix + id, attemptPrefix + id));
+    }
+
+    @Override
+    public void removeAll(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(ids.size() * 2);
+        for (String id : ids) {
+            keys.add(otpPrefix + id);
+            keys.add(attemptPrefix + id);
+        }
+        redisTemplate.delete(keys);
+    }
+}
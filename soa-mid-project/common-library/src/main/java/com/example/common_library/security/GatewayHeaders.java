@@ -0,0 +1,27 @@
+package com.example.common_library.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+// Header do api-gateway gắn vào request sau khi đã kiểm tra JWT.
+// Gateway luôn xóa các header này trong request từ client. Service phía sau chỉ được tin chúng khi
+// request mang đúng secret nội bộ (SECRET), vì client có thể gọi thẳng vào cổng của service.
+public final class GatewayHeaders {
+
+    public static final String USER_ID = "X-User-Id";
+    public static final String USERNAME = "X-User-Name";
+    public static final String ROLE = "X-User-Role";
+    public static final String SECRET = "X-Gateway-Secret";
+
+    private GatewayHeaders() {
+    }
+
+    // So sánh thời gian hằng; secret cấu hình rỗng nghĩa là không tin header nào
+    public static boolean isFromGateway(String providedSecret, String expectedSecret) {
+        if (providedSecret == null || expectedSecret == null || expectedSecret.isBlank()) {
+            return false;
+        }
+        return MessageDigest.isEqual(providedSecret.getBytes(StandardCharsets.UTF_8),
+                expectedSecret.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -2,9 +2,11 @@ package com.example.payment_service.client;
 
 import com.example.common_library.dto.TuitionDTO;
 import com.example.common_library.dto.StatusUpdateDTO;
+import feign.Response;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Collection;
 import java.util.List;
 
 @FeignClient(name = "tuition-service")
@@ -13,8 +15,16 @@ public interface TuitionServiceClient {
     @GetMapping("/api/tuition/{tuitionCode}")
     TuitionDTO getTuition(@PathVariable("tuitionCode") String tuitionCode);
     
+    // Lấy nhiều học phí trong một lần gọi, mã không tồn tại sẽ không có trong kết quả
+    @PostMapping("/api/tuition/batch")
+    List<TuitionDTO> getTuitionsByCodes(@RequestBody Collection<String> tuitionCodes);
+    
     @GetMapping("/api/tuition")
     List<TuitionDTO> getAllTuition();
+
+    // Trả về Response thô để đọc body dạng stream (NDJSON), người gọi phải đóng Response
+    @GetMapping("/api/tuition/export")
+    Response exportAllTuition();
     
     // Thay PATCH bằng PUT để tránh vấn đề với Feign
     @PutMapping("/api/tuition/{tuitionCode}/status")
@@ -1,12 +1,24 @@
 package com.example.payment_service.client;
 
+import com.example.common_library.dto.BalanceBatchRequest;
+import com.example.common_library.dto.BalanceBatchResult;
 import com.example.common_library.dto.DeductBalanceRequest;
 import com.example.common_library.dto.UserResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
 @FeignClient(name = "user-service")
 public interface UserServiceClient {
+
+    // Số id tối đa mỗi lần gọi /api/users/batch, phải nhỏ hơn user.batch-lookup.max-ids
+    int BATCH_LOOKUP_CHUNK_SIZE = 500;
     
     @GetMapping("/api/users/{userId}")
     UserResponse getUser(@PathVariable("userId") Long userId); // Thêm "userId"
@@ -19,4 +31,23 @@ public interface UserServiceClient {
     
     @PostMapping("/api/users/{userId}/release-balance")
     void releaseBalance(@PathVariable("userId") Long userId, @RequestBody DeductBalanceRequest request); // Thêm "userId"
+
+    @PostMapping("/api/users/batch")
+    Map<Long, UserResponse> getUsersByIdsChunk(@RequestBody Collection<Long> userIds);
+
+    // Lấy nhiều user, tự chia thành nhiều lần gọi nếu danh sách id quá lớn
+    default Map<Long, UserResponse> getUsersByIds(Collection<Long> userIds) {
+        Map<Long, UserResponse> result = new LinkedHashMap<>();
+        if (userIds == null || userIds.isEmpty()) {
+            return result;
+        }
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(userIds));
+        for (int from = 0; from < ids.size(); from += BATCH_LOOKUP_CHUNK_SIZE) {
+            result.putAll(getUsersByIdsChunk(ids.subList(from, Math.min(from + BATCH_LOOKUP_CHUNK_SIZE, ids.size()))));
+        }
+        return result;
+    }
+
+    @PostMapping("/api/users/balance/batch")
+    List<BalanceBatchResult> applyBalanceBatch(@RequestBody BalanceBatchRequest request);
 }
@@ -0,0 +1,32 @@
+package com.example.payment_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    @Value("${payment.lookup.pool-size:16}")
+    private int lookupPoolSize;
+
+    @Value("${payment.lookup.queue-capacity:200}")
+    private int lookupQueueCapacity;
+
+    // Pool dùng để gọi song song tuition-service, user-service và DB khi tạo payment.
+    // Khi pool và hàng đợi đầy, lời gọi chạy trên chính thread request (tương đương chế độ tuần tự).
+    @Bean(name = "paymentLookupExecutor")
+    public ThreadPoolTaskExecutor paymentLookupExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(lookupPoolSize);
+        executor.setMaxPoolSize(lookupPoolSize);
+        executor.setQueueCapacity(lookupQueueCapacity);
+        executor.setThreadNamePrefix("payment-lookup-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
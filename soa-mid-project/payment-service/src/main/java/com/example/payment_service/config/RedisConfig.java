@@ -1,5 +1,7 @@
 package com.example.payment_service.config;
 
+import com.example.common_library.otp.OtpStore;
+import com.example.common_library.otp.RedisOtpStore;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -27,4 +29,10 @@ public class RedisConfig {
     public StringRedisTemplate stringRedisTemplate() {
         return new StringRedisTemplate(redisConnectionFactory());
     }
+
+    // OTP thanh toán: payment:otp:{paymentId}, bộ đếm sai payment:otp:attempt:{paymentId}
+    @Bean
+    public OtpStore otpStore(StringRedisTemplate stringRedisTemplate) {
+        return new RedisOtpStore(stringRedisTemplate, "payment:otp:", "payment:otp:attempt:");
+    }
 }
\ No newline at end of file
@@ -2,13 +2,20 @@ package com.example.payment_service.controller;
 
 import com.example.common_library.dto.TuitionDTO;
 import com.example.payment_service.dto.CreatePaymentRequest;
+import com.example.payment_service.dto.NotificationDispatchStats;
 import com.example.payment_service.dto.TransactionHistoryDTO;
+import com.example.payment_service.dto.TransactionHistoryPage;
+import com.example.payment_service.dto.TuitionCacheStats;
 import com.example.payment_service.dto.VerifyOtpRequest;
 import com.example.payment_service.model.Payment;
+import com.example.payment_service.service.NotificationDispatcher;
 import com.example.payment_service.service.PaymentService;
+import com.example.payment_service.service.TuitionCacheService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -19,10 +26,16 @@ import java.util.List;
 public class PaymentController {
 
     private final PaymentService paymentService;
+    private final NotificationDispatcher notificationDispatcher;
+    private final TuitionCacheService tuitionCacheService;
 
     @Autowired
-    public PaymentController(PaymentService paymentService) {
+    public PaymentController(PaymentService paymentService,
+                             NotificationDispatcher notificationDispatcher,
+                             TuitionCacheService tuitionCacheService) {
         this.paymentService = paymentService;
+        this.notificationDispatcher = notificationDispatcher;
+        this.tuitionCacheService = tuitionCacheService;
     }
 
     // Tạo payment, gửi OTP
@@ -50,4 +63,46 @@ public class PaymentController {
         return ResponseEntity.ok(history);
     }
 
+    // Lịch sử giao dịch phân trang theo con trỏ (mới nhất trước)
+    @GetMapping("/history/{userId}/page")
+    public ResponseEntity<TransactionHistoryPage> getTransactionHistoryPage(
+        @PathVariable("userId") Long userId,
+        @RequestParam(value = "cursor", required = false) String cursor,
+        @RequestParam(value = "size", required = false) Integer size) {
+
+        TransactionHistoryPage page = paymentService.getTransactionHistoryPage(userId, cursor, size);
+        return ResponseEntity.ok(page);
+    }
+
+    // Xuất toàn bộ lịch sử giao dịch dạng NDJSON (mỗi dòng một giao dịch)
+    @GetMapping(value = "/history/{userId}/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportTransactionHistory(
+        @PathVariable("userId") Long userId) {
+
+        StreamingResponseBody body = out -> paymentService.exportTransactionHistory(userId, out);
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType("application/x-ndjson"))
+            .body(body);
+    }
+
+    // Xuất toàn bộ học phí dạng NDJSON, chuyển tiếp từ tuition-service
+    @GetMapping(value = "/tuition/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportAllTuition() {
+        StreamingResponseBody body = out -> paymentService.exportAllTuition(out);
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType("application/x-ndjson"))
+            .body(body);
+    }
+
+    // Số liệu hàng đợi gửi email: độ sâu hàng đợi, độ trễ gửi
+    @GetMapping("/notifications/stats")
+    public ResponseEntity<NotificationDispatchStats> getNotificationStats() {
+        return ResponseEntity.ok(notificationDispatcher.getStats());
+    }
+
+    // Số liệu cache học phí: hit rate, số phần tử bị đẩy ra, số lần gọi tuition-service
+    @GetMapping("/tuition-cache/stats")
+    public ResponseEntity<TuitionCacheStats> getTuitionCacheStats() {
+        return ResponseEntity.ok(tuitionCacheService.getStats());
+    }
 }
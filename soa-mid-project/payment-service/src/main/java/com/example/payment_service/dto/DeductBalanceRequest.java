@@ -5,5 +5,6 @@ import java.math.BigDecimal;
 
 @Data
 public class DeductBalanceRequest {
+    private Long paymentId;     // Reservation gắn với payment này
     private BigDecimal amount;
 }
\ No newline at end of file
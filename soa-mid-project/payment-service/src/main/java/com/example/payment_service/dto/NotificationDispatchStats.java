@@ -0,0 +1,17 @@
+package com.example.payment_service.dto;
+
+import lombok.Data;
+
+@Data
+public class NotificationDispatchStats {
+    private int queueDepth;          // Số email đang nằm trong hàng đợi bộ nhớ
+    private int queueCapacity;
+    private int inFlight;            // Đã nhận vào hàng đợi nhưng chưa gửi xong
+    private long pendingInOutbox;    // Số dòng PENDING trong bảng notification_outbox
+    private long failedInOutbox;     // Số dòng FAILED (đã hết số lần thử)
+    private long dispatched;
+    private long dispatchErrors;
+    private long lastDispatchLagMs;  // Thời gian từ lúc tạo đến lúc gửi xong của email gần nhất
+    private long maxDispatchLagMs;
+    private double avgDispatchLagMs;
+}
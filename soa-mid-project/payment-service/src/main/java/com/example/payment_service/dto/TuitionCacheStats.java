@@ -0,0 +1,14 @@
+package com.example.payment_service.dto;
+
+import com.example.common_library.cache.CacheStats;
+import lombok.Data;
+
+@Data
+public class TuitionCacheStats {
+    private CacheStats local;        // Cache trong bộ nhớ (L1)
+    private boolean redisEnabled;
+    private long redisHits;          // Lấy được từ Redis (L2) khi L1 không có
+    private long redisMisses;
+    private long remoteLoads;        // Số lần phải gọi tuition-service
+    private long invalidations;
+}
@@ -0,0 +1,55 @@
+package com.example.payment_service.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Email chờ gửi qua notification-service. Dòng bị xóa khi gửi thành công,
+// nên những gì còn lại trong bảng sau khi restart sẽ được gửi lại (trừ OTP: bị xóa khi khởi động,
+// khi quá hạn hoặc khi gửi thất bại hẳn, để không lưu mã OTP dạng rõ lâu hơn thời hạn của nó).
+@Entity
+@Data
+@Table(name = "notification_outbox")
+public class NotificationOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    private NotificationType type;
+
+    @Column(columnDefinition = "TEXT")
+    private String payload;     // Request dạng JSON
+
+    @Enumerated(EnumType.STRING)
+    private NotificationStatus status;
+
+    private int attempts;
+
+    @Column(columnDefinition = "TEXT")
+    private String lastError;
+
+    private LocalDateTime createdAt;
+
+    private String claimedBy;          // Instance đang giữ email để gửi
+
+    private LocalDateTime leaseUntil;  // Sau thời điểm này instance khác được nhận lại
+
+    @PrePersist
+    public void onCreate() {
+        this.createdAt = LocalDateTime.now();
+        if (this.status == null) {
+            this.status = NotificationStatus.PENDING;
+        }
+    }
+}
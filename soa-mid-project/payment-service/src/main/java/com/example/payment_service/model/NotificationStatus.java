@@ -0,0 +1,6 @@
+package com.example.payment_service.model;
+
+public enum NotificationStatus {
+    PENDING,   // Chưa gửi được, sẽ được gửi lại
+    FAILED     // Đã thử quá số lần cho phép
+}
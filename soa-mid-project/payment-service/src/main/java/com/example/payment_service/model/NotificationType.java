@@ -0,0 +1,6 @@
+package com.example.payment_service.model;
+
+public enum NotificationType {
+    OTP,              // Email gửi mã OTP khi tạo payment
+    PAYMENT_SUCCESS   // Email xác nhận thanh toán thành công
+}
@@ -38,7 +38,9 @@ public class Payment {
     public void onCreate() {
         this.createdAt = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
-        this.status = PaymentStatus.PENDING_OTP;
+        if (this.status == null) {
+            this.status = PaymentStatus.PENDING_OTP;
+        }
     }
 
     @PreUpdate
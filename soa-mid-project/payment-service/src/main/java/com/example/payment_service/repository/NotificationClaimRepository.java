@@ -0,0 +1,69 @@
+package com.example.payment_service.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Nhận (claim) email trong notification_outbox để chỉ một instance payment-service gửi mỗi email.
+// claimPending phải được gọi trong transaction để khóa FOR UPDATE giữ đến khi ghi xong lease.
+@Repository
+public class NotificationClaimRepository {
+
+    // SKIP LOCKED: các instance chạy redispatch cùng lúc sẽ nhận các dòng khác nhau
+    private static final String LOCK_CLAIMABLE =
+        "SELECT id FROM notification_outbox " +
+        "WHERE status = 'PENDING' AND (lease_until IS NULL OR lease_until < ?) " +
+        "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    // Gia hạn ngay trước khi gửi; trả về 0 nếu instance khác đã nhận lại dòng này
+    private static final String RENEW_LEASE =
+        "UPDATE notification_outbox SET lease_until = ? " +
+        "WHERE id = ? AND status = 'PENDING' AND claimed_by = ?";
+
+    // Trả lease khi không đưa được vào hàng đợi, để lần redispatch kế tiếp nhận lại ngay
+    private static final String RELEASE_LEASE =
+        "UPDATE notification_outbox SET claimed_by = NULL, lease_until = NULL WHERE id = ? AND claimed_by = ?";
+
+    // OTP quá hạn thì email vô dụng: xóa thay vì gửi
+    private static final String DELETE_STALE_OTPS =
+        "DELETE FROM notification_outbox WHERE type = 'OTP' AND created_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public NotificationClaimRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<Long> claimPending(String owner, LocalDateTime now, LocalDateTime leaseUntil, int limit) {
+        List<Long> ids = jdbcTemplate.queryForList(LOCK_CLAIMABLE, Long.class, Timestamp.valueOf(now), limit);
+        if (ids.isEmpty()) {
+            return ids;
+        }
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        List<Object> args = new ArrayList<>(ids.size() + 2);
+        args.add(owner);
+        args.add(Timestamp.valueOf(leaseUntil));
+        args.addAll(ids);
+        jdbcTemplate.update(
+            "UPDATE notification_outbox SET claimed_by = ?, lease_until = ? WHERE id IN (" + placeholders + ")",
+            args.toArray());
+        return ids;
+    }
+
+    public boolean renewLease(Long id, String owner, LocalDateTime leaseUntil) {
+        return jdbcTemplate.update(RENEW_LEASE, Timestamp.valueOf(leaseUntil), id, owner) == 1;
+    }
+
+    public void releaseLease(Long id, String owner) {
+        jdbcTemplate.update(RELEASE_LEASE, id, owner);
+    }
+
+    public int deleteStaleOtps(LocalDateTime createdBefore) {
+        return jdbcTemplate.update(DELETE_STALE_OTPS, Timestamp.valueOf(createdBefore));
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.payment_service.repository;
+
+import com.example.payment_service.model.NotificationOutbox;
+import com.example.payment_service.model.NotificationStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+    long countByStatus(NotificationStatus status);
+}
@@ -0,0 +1,116 @@
+package com.example.payment_service.repository;
+
+import com.example.payment_service.model.Payment;
+import com.example.payment_service.model.PaymentStatus;
+import com.example.payment_service.model.TransactionHistory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// Truy vấn theo lô cho việc dọn các payment hết hạn OTP.
+// Các hàm này phải được gọi trong transaction để khóa FOR UPDATE giữ đến khi cập nhật xong.
+@Repository
+public class PaymentSweepRepository {
+
+    // SKIP LOCKED: nhiều instance payment-service chạy cùng lúc sẽ lấy các trang khác nhau
+    private static final String LOCK_EXPIRED_PAGE =
+        "SELECT id, user_id, tuition_code, amount FROM payments " +
+        "WHERE status = 'PENDING_OTP' AND otp_expired_at < ? " +
+        "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    // Payment đã FAILED mà số dư chưa được user-service xác nhận giải phóng; không cần khóa vì RELEASE idempotent.
+    // Keyset theo id để dòng lỗi mãi không chặn các dòng phía sau; dòng đã hết số lần thử thì bỏ qua
+    private static final String FIND_RELEASE_PENDING_PAGE =
+        "SELECT id, user_id, tuition_code, amount FROM payments " +
+        "WHERE balance_release_pending = TRUE AND id > ? AND balance_release_attempts < ? ORDER BY id LIMIT ?";
+
+    private static final String RECORD_RELEASE_FAILURE =
+        "UPDATE payments SET balance_release_attempts = GREATEST(balance_release_attempts + 1, ?), " +
+        "balance_release_error = ? WHERE id = ?";
+
+    private static final String INSERT_HISTORY =
+        "INSERT INTO transaction_history (payment_id, user_id, tuition_code, amount, status, message, created_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PaymentSweepRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<Payment> lockExpiredPage(LocalDateTime now, int limit) {
+        return jdbcTemplate.query(LOCK_EXPIRED_PAGE, (rs, rowNum) -> {
+            Payment p = new Payment();
+            p.setId(rs.getLong("id"));
+            p.setUserId(rs.getLong("user_id"));
+            p.setTuitionCode(rs.getString("tuition_code"));
+            p.setAmount(rs.getObject("amount", Double.class));
+            p.setStatus(PaymentStatus.PENDING_OTP);
+            return p;
+        }, Timestamp.valueOf(now), limit);
+    }
+
+    public List<Payment> findReleasePendingPage(long afterId, int maxAttempts, int limit) {
+        return jdbcTemplate.query(FIND_RELEASE_PENDING_PAGE, (rs, rowNum) -> {
+            Payment p = new Payment();
+            p.setId(rs.getLong("id"));
+            p.setUserId(rs.getLong("user_id"));
+            p.setTuitionCode(rs.getString("tuition_code"));
+            p.setAmount(rs.getObject("amount", Double.class));
+            p.setStatus(PaymentStatus.FAILED);
+            return p;
+        }, afterId, maxAttempts, limit);
+    }
+
+    // Đánh dấu FAILED kèm cờ chờ giải phóng số dư, cờ chỉ được xóa khi user-service xác nhận
+    public int markFailed(List<Long> paymentIds) {
+        if (paymentIds.isEmpty()) {
+            return 0;
+        }
+        String placeholders = String.join(",", Collections.nCopies(paymentIds.size(), "?"));
+        return jdbcTemplate.update(
+            "UPDATE payments SET status = 'FAILED', balance_release_pending = TRUE " +
+            "WHERE status = 'PENDING_OTP' AND id IN (" + placeholders + ")",
+            paymentIds.toArray());
+    }
+
+    public int clearReleasePending(List<Long> paymentIds) {
+        if (paymentIds.isEmpty()) {
+            return 0;
+        }
+        String placeholders = String.join(",", Collections.nCopies(paymentIds.size(), "?"));
+        return jdbcTemplate.update(
+            "UPDATE payments SET balance_release_pending = FALSE WHERE id IN (" + placeholders + ")",
+            paymentIds.toArray());
+    }
+
+    // Tăng số lần thử (ít nhất lên minAttempts) và lưu lỗi của các payment bị user-service từ chối RELEASE
+    public void recordReleaseFailures(Map<Long, String> errorsByPaymentId, int minAttempts) {
+        if (errorsByPaymentId.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(errorsByPaymentId.size());
+        for (Map.Entry<Long, String> entry : errorsByPaymentId.entrySet()) {
+            args.add(new Object[] {minAttempts, entry.getValue(), entry.getKey()});
+        }
+        jdbcTemplate.batchUpdate(RECORD_RELEASE_FAILURE, args);
+    }
+
+    public void insertHistories(List<TransactionHistory> histories) {
+        jdbcTemplate.batchUpdate(INSERT_HISTORY, histories, histories.size(), (ps, h) -> {
+            ps.setObject(1, h.getPaymentId());
+            ps.setObject(2, h.getUserId());
+            ps.setString(3, h.getTuitionCode());
+            ps.setObject(4, h.getAmount());
+            ps.setString(5, h.getStatus());
+            ps.setString(6, h.getMessage());
+            ps.setTimestamp(7, Timestamp.valueOf(h.getCreatedAt()));
+        });
+    }
+}
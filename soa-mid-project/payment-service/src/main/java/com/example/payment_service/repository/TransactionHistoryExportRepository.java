@@ -0,0 +1,43 @@
+package com.example.payment_service.repository;
+
+import com.example.payment_service.model.TransactionHistory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.function.Consumer;
+
+// Đọc lịch sử giao dịch bằng con trỏ JDBC chỉ tiến (MySQL streaming result set),
+// mỗi dòng được đưa thẳng cho consumer nên bộ nhớ không tăng theo số dòng.
+@Repository
+public class TransactionHistoryExportRepository {
+
+    private static final String SELECT_BY_USER =
+        "SELECT id, payment_id, user_id, tuition_code, amount, status, message, created_at " +
+        "FROM transaction_history WHERE user_id = ? ORDER BY created_at DESC, id DESC";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TransactionHistoryExportRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        // Integer.MIN_VALUE: MySQL Connector/J trả từng dòng thay vì nạp toàn bộ kết quả
+        this.jdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    public void streamByUserId(Long userId, Consumer<TransactionHistory> consumer) {
+        jdbcTemplate.query(SELECT_BY_USER, rs -> {
+            TransactionHistory h = new TransactionHistory();
+            h.setId(rs.getLong("id"));
+            h.setPaymentId(rs.getObject("payment_id", Long.class));
+            h.setUserId(rs.getLong("user_id"));
+            h.setTuitionCode(rs.getString("tuition_code"));
+            h.setAmount(rs.getObject("amount", Double.class));
+            h.setStatus(rs.getString("status"));
+            h.setMessage(rs.getString("message"));
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            h.setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+            consumer.accept(h);
+        }, userId);
+    }
+}
@@ -1,10 +1,25 @@
 package com.example.payment_service.repository;
 
 import com.example.payment_service.model.TransactionHistory;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface TransactionHistoryRepository extends JpaRepository<TransactionHistory, Long> {
     List<TransactionHistory> findByUserId(Long userId);
-}
\ No newline at end of file
+
+    // Phân trang keyset (mới nhất trước), dùng index (user_id, created_at, id)
+    List<TransactionHistory> findByUserIdOrderByCreatedAtDescIdDesc(Long userId, Pageable pageable);
+
+    @Query("SELECT h FROM TransactionHistory h WHERE h.userId = :userId " +
+           "AND (h.createdAt < :createdAt OR (h.createdAt = :createdAt AND h.id < :id)) " +
+           "ORDER BY h.createdAt DESC, h.id DESC")
+    List<TransactionHistory> findPageAfter(@Param("userId") Long userId,
+                                           @Param("createdAt") LocalDateTime createdAt,
+                                           @Param("id") Long id,
+                                           Pageable pageable);
+}
@@ -0,0 +1,11 @@
+package com.example.payment_service.service;
+
+import com.example.common_library.dto.PaymentSuccessEmailRequest;
+import com.example.payment_service.dto.NotificationDispatchStats;
+import com.example.payment_service.dto.OtpEmailRequest;
+
+public interface NotificationDispatcher {
+    void sendOtp(OtpEmailRequest request);
+    void sendPaymentSuccess(PaymentSuccessEmailRequest request);
+    NotificationDispatchStats getStats();
+}
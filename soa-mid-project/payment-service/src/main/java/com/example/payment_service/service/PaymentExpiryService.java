@@ -0,0 +1,9 @@
+package com.example.payment_service.service;
+
+public interface PaymentExpiryService {
+    // Chuyển các payment PENDING_OTP đã hết hạn sang FAILED và giải phóng số dư, trả về số payment đã xử lý
+    int sweepExpiredPayments();
+
+    // Gọi lại RELEASE cho các payment FAILED mà user-service chưa xác nhận, trả về số payment đã xác nhận
+    int retryPendingReleases();
+}
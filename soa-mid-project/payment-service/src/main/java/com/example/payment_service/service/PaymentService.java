@@ -3,8 +3,10 @@ package com.example.payment_service.service;
 import com.example.common_library.dto.TuitionDTO;
 import com.example.payment_service.dto.CreatePaymentRequest;
 import com.example.payment_service.dto.TransactionHistoryDTO;
+import com.example.payment_service.dto.TransactionHistoryPage;
 import com.example.payment_service.model.Payment;
 
+import java.io.OutputStream;
 import java.util.List;
 
 public interface PaymentService {
@@ -12,6 +14,11 @@ public interface PaymentService {
     boolean verifyOtp(Long paymentId, String otpCode);
     Payment verifyOtpAndReturn(Long paymentId, String otpCode);
     List<TransactionHistoryDTO> getTransactionHistoryWithTuition(Long userId);
+    TransactionHistoryPage getTransactionHistoryPage(Long userId, String cursor, Integer size);
+    void exportTransactionHistory(Long userId, OutputStream out);
 
     List<TuitionDTO> getAllTuition();
+
+    // Chuyển tiếp NDJSON từ tuition-service theo từng khối, không nạp toàn bộ danh sách vào bộ nhớ
+    void exportAllTuition(OutputStream out);
 }
@@ -0,0 +1,19 @@
+package com.example.payment_service.service;
+
+import com.example.common_library.dto.StatusUpdateDTO;
+import com.example.common_library.dto.TuitionDTO;
+import com.example.payment_service.dto.TuitionCacheStats;
+
+import java.util.Collection;
+import java.util.Map;
+
+// Đọc học phí qua cache (bộ nhớ, tùy chọn thêm Redis) đặt trước TuitionServiceClient
+public interface TuitionCacheService {
+    TuitionDTO getTuition(String tuitionCode);
+    // Bỏ qua cache, luôn hỏi tuition-service rồi cập nhật cache
+    TuitionDTO refreshTuition(String tuitionCode);
+    Map<String, TuitionDTO> getTuitions(Collection<String> tuitionCodes);
+    TuitionDTO updateTuitionStatus(String tuitionCode, StatusUpdateDTO statusUpdate);
+    void invalidate(String tuitionCode);
+    TuitionCacheStats getStats();
+}
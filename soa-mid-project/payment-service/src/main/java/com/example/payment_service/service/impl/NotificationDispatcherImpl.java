@@ -0,0 +1,290 @@
+package com.example.payment_service.service.impl;
+
+import com.example.common_library.dto.PaymentSuccessEmailRequest;
+import com.example.payment_service.client.NotificationServiceClient;
+import com.example.payment_service.dto.NotificationDispatchStats;
+import com.example.payment_service.dto.OtpEmailRequest;
+import com.example.payment_service.model.NotificationOutbox;
+import com.example.payment_service.model.NotificationStatus;
+import com.example.payment_service.model.NotificationType;
+import com.example.payment_service.repository.NotificationClaimRepository;
+import com.example.payment_service.repository.NotificationOutboxRepository;
+import com.example.payment_service.service.NotificationDispatcher;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gửi email qua notification-service ngoài thread xử lý request.
+ * Mỗi email được ghi vào bảng notification_outbox trước, sau đó đưa vào hàng đợi bộ nhớ
+ * cho các worker gửi. Email nào không vào được hàng đợi, gửi lỗi, hoặc còn sót lại sau khi
+ * restart sẽ được {@link #redispatchPending()} đưa vào hàng đợi lại.
+ * Mỗi dòng outbox có lease (claimed_by, lease_until): instance ghi dòng giữ lease ngay từ đầu,
+ * redispatch chỉ nhận các dòng hết lease bằng SELECT ... FOR UPDATE SKIP LOCKED, và worker gia hạn
+ * lease ngay trước khi gửi. Nhờ vậy nhiều instance chạy cùng lúc không gửi trùng một email.
+ */
+@Service
+public class NotificationDispatcherImpl implements NotificationDispatcher {
+
+    @Autowired
+    private NotificationServiceClient notificationServiceClient;
+
+    @Autowired
+    private NotificationOutboxRepository outboxRepository;
+
+    @Autowired
+    private NotificationClaimRepository claimRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${payment.notification.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${payment.notification.workers:4}")
+    private int workerCount;
+
+    @Value("${payment.notification.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${payment.notification.lease-ms:120000}")
+    private long leaseMs;
+
+    @Value("${payment.notification.redispatch-batch-size:100}")
+    private int redispatchBatchSize;
+
+    // Bằng thời hạn OTP của payment: email OTP cũ hơn thì bỏ, không gửi
+    @Value("${payment.notification.otp-max-age-ms:60000}")
+    private long otpMaxAgeMs;
+
+    // Định danh instance này khi nhận email trong outbox
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private BlockingQueue<NotificationOutbox> queue;
+    private ExecutorService workers;
+    private volatile boolean running = true;
+
+    // Id các email đang nằm trong hàng đợi hoặc đang gửi, tránh gửi trùng khi redispatch
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong dispatchErrors = new AtomicLong();
+    private final AtomicLong totalLagMs = new AtomicLong();
+    private final AtomicLong lastLagMs = new AtomicLong();
+    private final AtomicLong maxLagMs = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+        AtomicInteger threadIndex = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, r -> {
+            Thread t = new Thread(r, "notification-dispatch-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < workerCount; i++) {
+            workers.submit(this::runWorker);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        workers.shutdownNow();
+    }
+
+    @Override
+    public void sendOtp(OtpEmailRequest request) {
+        enqueue(NotificationType.OTP, request);
+    }
+
+    @Override
+    public void sendPaymentSuccess(PaymentSuccessEmailRequest request) {
+        enqueue(NotificationType.PAYMENT_SUCCESS, request);
+    }
+
+    @Override
+    public NotificationDispatchStats getStats() {
+        NotificationDispatchStats stats = new NotificationDispatchStats();
+        stats.setQueueDepth(queue.size());
+        stats.setQueueCapacity(queueCapacity);
+        stats.setInFlight(inFlight.size());
+        stats.setPendingInOutbox(outboxRepository.countByStatus(NotificationStatus.PENDING));
+        stats.setFailedInOutbox(outboxRepository.countByStatus(NotificationStatus.FAILED));
+        long count = dispatched.get();
+        stats.setDispatched(count);
+        stats.setDispatchErrors(dispatchErrors.get());
+        stats.setLastDispatchLagMs(lastLagMs.get());
+        stats.setMaxDispatchLagMs(maxLagMs.get());
+        stats.setAvgDispatchLagMs(count == 0 ? 0 : (double) totalLagMs.get() / count);
+        return stats;
+    }
+
+    // Nhận và đưa lại vào hàng đợi các email hết lease (gửi lỗi, hàng đợi đầy, hoặc còn sót từ lần chạy trước)
+    @Scheduled(fixedDelayString = "${payment.notification.redispatch-delay-ms:30000}")
+    public void redispatchPending() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int stale = claimRepository.deleteStaleOtps(now.minus(Duration.ofMillis(otpMaxAgeMs)));
+            if (stale > 0) {
+                System.out.println("Dropped " + stale + " OTP emails older than the OTP lifetime");
+            }
+            LocalDateTime leaseUntil = now.plus(Duration.ofMillis(leaseMs));
+            List<Long> claimed = transactionTemplate.execute(status ->
+                claimRepository.claimPending(instanceId, now, leaseUntil, redispatchBatchSize));
+            if (claimed == null || claimed.isEmpty()) {
+                return;
+            }
+            for (NotificationOutbox item : outboxRepository.findAllById(claimed)) {
+                offer(item);
+            }
+        } catch (Exception e) {
+            System.err.println("Error redispatching pending notifications: " + e.getMessage());
+        }
+    }
+
+    private void enqueue(NotificationType type, Object request) {
+        NotificationOutbox item = new NotificationOutbox();
+        item.setType(type);
+        item.setPayload(toJson(request));
+        item.setClaimedBy(instanceId);
+        item.setLeaseUntil(LocalDateTime.now().plus(Duration.ofMillis(leaseMs)));
+        item = outboxRepository.save(item);
+        offer(item);
+    }
+
+    private void offer(NotificationOutbox item) {
+        if (!inFlight.add(item.getId())) {
+            return;
+        }
+        if (!queue.offer(item)) {
+            // Hàng đợi đầy: email vẫn nằm trong outbox; trả lease để lần redispatch kế tiếp gửi ngay,
+            // không phải chờ hết lease (lâu hơn thời hạn OTP)
+            inFlight.remove(item.getId());
+            try {
+                claimRepository.releaseLease(item.getId(), instanceId);
+            } catch (Exception e) {
+                System.err.println("Error releasing lease of notification " + item.getId() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void runWorker() {
+        while (running) {
+            NotificationOutbox item;
+            try {
+                item = queue.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (item == null) {
+                continue;
+            }
+            try {
+                dispatch(item);
+            } finally {
+                inFlight.remove(item.getId());
+            }
+        }
+    }
+
+    private void dispatch(NotificationOutbox item) {
+        // Lease đã hết trong lúc chờ trong hàng đợi và instance khác đã nhận lại: không gửi nữa
+        LocalDateTime leaseUntil = LocalDateTime.now().plus(Duration.ofMillis(leaseMs));
+        try {
+            if (!claimRepository.renewLease(item.getId(), instanceId, leaseUntil)) {
+                return;
+            }
+            item.setLeaseUntil(leaseUntil);
+            if (isExpiredOtp(item)) {
+                outboxRepository.deleteById(item.getId());
+                System.err.println("Dropped expired OTP notification " + item.getId());
+                return;
+            }
+        } catch (Exception e) {
+            System.err.println("Error renewing lease of notification " + item.getId() + ": " + e.getMessage());
+            return;
+        }
+        try {
+            if (item.getType() == NotificationType.OTP) {
+                notificationServiceClient.sendOtp(
+                    objectMapper.readValue(item.getPayload(), OtpEmailRequest.class));
+            } else if (item.getType() == NotificationType.PAYMENT_SUCCESS) {
+                notificationServiceClient.sendPaymentSuccess(
+                    objectMapper.readValue(item.getPayload(), PaymentSuccessEmailRequest.class));
+            }
+            outboxRepository.deleteById(item.getId());
+            recordLag(Duration.between(item.getCreatedAt(), LocalDateTime.now()).toMillis());
+        } catch (Exception e) {
+            dispatchErrors.incrementAndGet();
+            System.err.println("Error sending " + item.getType() + " notification " + item.getId() + ": " + e.getMessage());
+            try {
+                if (isExpiredOtp(item)) {
+                    // Gửi lại cũng vô ích vì OTP đã hết hạn
+                    outboxRepository.deleteById(item.getId());
+                    return;
+                }
+                item.setAttempts(item.getAttempts() + 1);
+                item.setLastError(e.getMessage());
+                if (item.getAttempts() >= maxAttempts) {
+                    if (item.getType() == NotificationType.OTP) {
+                        // Không giữ mã OTP dạng rõ trong outbox khi đã bỏ cuộc
+                        outboxRepository.deleteById(item.getId());
+                        return;
+                    }
+                    item.setStatus(NotificationStatus.FAILED);
+                }
+                // Trả lease để lần redispatch sau (ở bất kỳ instance nào) gửi lại
+                item.setClaimedBy(null);
+                item.setLeaseUntil(null);
+                outboxRepository.save(item);
+            } catch (Exception saveError) {
+                System.err.println("Error updating notification outbox: " + saveError.getMessage());
+            }
+        }
+    }
+
+    private boolean isExpiredOtp(NotificationOutbox item) {
+        return item.getType() == NotificationType.OTP && item.getCreatedAt() != null
+            && item.getCreatedAt().isBefore(LocalDateTime.now().minus(Duration.ofMillis(otpMaxAgeMs)));
+    }
+
+    private void recordLag(long lagMs) {
+        dispatched.incrementAndGet();
+        totalLagMs.addAndGet(lagMs);
+        lastLagMs.set(lagMs);
+        maxLagMs.accumulateAndGet(lagMs, Math::max);
+    }
+
+    private String toJson(Object request) {
+        try {
+            return objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize notification request", e);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.payment_service.service.impl;
+
+import com.example.common_library.dto.BalanceBatchEntry;
+import com.example.common_library.dto.BalanceBatchRequest;
+import com.example.common_library.dto.BalanceBatchResult;
+import com.example.common_library.dto.BalanceOperation;
+import com.example.common_library.exception.ErrorCode;
+import com.example.common_library.otp.OtpStore;
+import com.example.payment_service.client.UserServiceClient;
+import com.example.payment_service.model.Payment;
+import com.example.payment_service.model.TransactionHistory;
+import com.example.payment_service.repository.PaymentSweepRepository;
+import com.example.payment_service.service.PaymentExpiryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dọn các payment hết hạn OTP theo từng trang thay vì từng dòng.
+ * Mỗi trang được khóa bằng SELECT ... FOR UPDATE SKIP LOCKED, cập nhật trạng thái và ghi lịch sử
+ * trong cùng một transaction, nên nhiều instance có thể chạy song song mà không xử lý trùng.
+ * Sau khi commit mới giải phóng số dư (một lời gọi batch mỗi trang) và xóa OTP trên Redis.
+ * Payment được đánh dấu balance_release_pending cùng lúc chuyển FAILED; cờ chỉ được xóa khi user-service
+ * xác nhận RELEASE, các payment còn cờ được job retryPendingReleases gọi lại.
+ * Mỗi lần user-service từ chối RELEASE thì tăng balance_release_attempts và lưu lỗi; payment đạt
+ * payment.release-retry.max-attempts (hoặc bị từ chối vì lỗi không thể tự hết như RESERVATION_CONFLICT)
+ * không được thử lại nữa, cần xử lý tay rồi đặt lại balance_release_attempts = 0.
+ */
+@Service
+public class PaymentExpiryServiceImpl implements PaymentExpiryService {
+
+    @Autowired
+    private PaymentSweepRepository sweepRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UserServiceClient userServiceClient;
+
+    @Autowired
+    private OtpStore otpStore;
+
+    // Lỗi RELEASE mà thử lại cũng không hết: bỏ qua payment ngay thay vì thử đến hết số lần
+    private static final Set<String> PERMANENT_RELEASE_ERRORS =
+        Set.of(ErrorCode.RESERVATION_CONFLICT.name(), ErrorCode.BAD_REQUEST.name());
+
+    @Value("${payment.expiry-sweep.page-size:500}")
+    private int pageSize;
+
+    @Value("${payment.release-retry.max-attempts:10}")
+    private int maxReleaseAttempts;
+
+    @Scheduled(fixedDelayString = "${payment.expiry-sweep.interval-ms:60000}")
+    public void scheduledSweep() {
+        try {
+            int swept = sweepExpiredPayments();
+            if (swept > 0) {
+                System.out.println("Expired " + swept + " pending payments");
+            }
+        } catch (Exception e) {
+            System.err.println("Error in cleanup task: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${payment.release-retry.interval-ms:60000}")
+    public void scheduledReleaseRetry() {
+        try {
+            int released = retryPendingReleases();
+            if (released > 0) {
+                System.out.println("Released reserved balance for " + released + " failed payments on retry");
+            }
+        } catch (Exception e) {
+            System.err.println("Error in release retry task: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public int sweepExpiredPayments() {
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        while (true) {
+            List<Payment> page = transactionTemplate.execute(status -> expirePage(now));
+            if (page == null || page.isEmpty()) {
+                return total;
+            }
+            total += page.size();
+            releaseBalances(page);
+            removeOtps(page);
+            if (page.size() < pageSize) {
+                return total;
+            }
+        }
+    }
+
+    private List<Payment> expirePage(LocalDateTime now) {
+        List<Payment> page = sweepRepository.lockExpiredPage(now, pageSize);
+        if (page.isEmpty()) {
+            return page;
+        }
+        List<Long> ids = new ArrayList<>(page.size());
+        List<TransactionHistory> histories = new ArrayList<>(page.size());
+        for (Payment payment : page) {
+            ids.add(payment.getId());
+            TransactionHistory history = new TransactionHistory();
+            history.setPaymentId(payment.getId());
+            history.setUserId(payment.getUserId());
+            history.setTuitionCode(payment.getTuitionCode());
+            history.setAmount(payment.getAmount());
+            history.setStatus("FAILED");
+            history.setMessage("OTP expired automatically");
+            history.setCreatedAt(now);
+            histories.add(history);
+        }
+        sweepRepository.markFailed(ids);
+        sweepRepository.insertHistories(histories);
+        return page;
+    }
+
+    @Override
+    public int retryPendingReleases() {
+        int total = 0;
+        long afterId = 0;
+        while (true) {
+            List<Payment> page = sweepRepository.findReleasePendingPage(afterId, maxReleaseAttempts, pageSize);
+            if (page.isEmpty()) {
+                return total;
+            }
+            int released = releaseBalances(page);
+            if (released < 0) {
+                // Không gọi được user-service: các trang sau cũng sẽ lỗi, lần chạy sau thử lại
+                return total;
+            }
+            total += released;
+            if (page.size() < pageSize) {
+                return total;
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    // Giải phóng số dư của cả trang bằng một lời gọi batch tới user-service.
+    // Xóa cờ chờ giải phóng của các entry được xác nhận, ghi lỗi của các entry bị từ chối.
+    // Trả về số entry được xác nhận, hoặc -1 khi không gọi được user-service (không tính là một lần thử).
+    private int releaseBalances(List<Payment> page) {
+        List<BalanceBatchEntry> entries = new ArrayList<>(page.size());
+        for (Payment payment : page) {
+            entries.add(new BalanceBatchEntry(payment.getUserId(), payment.getId(),
+                BigDecimal.valueOf(payment.getAmount()), BalanceOperation.RELEASE));
+        }
+        List<Long> released = new ArrayList<>(page.size());
+        Map<Long, String> retryable = new LinkedHashMap<>();
+        Map<Long, String> permanent = new LinkedHashMap<>();
+        try {
+            List<BalanceBatchResult> results = userServiceClient.applyBalanceBatch(new BalanceBatchRequest(entries));
+            for (BalanceBatchResult result : results) {
+                Long paymentId = page.get(result.getIndex()).getId();
+                if (result.isSuccess()) {
+                    released.add(paymentId);
+                } else if (PERMANENT_RELEASE_ERRORS.contains(result.getErrorCode())) {
+                    System.err.println("Error releasing reserved balance for payment "
+                        + paymentId + ": " + result.getMessage() + " (giving up)");
+                    permanent.put(paymentId, result.getErrorCode() + ": " + result.getMessage());
+                } else {
+                    System.err.println("Error releasing reserved balance for payment "
+                        + paymentId + ": " + result.getMessage() + " (will retry)");
+                    retryable.put(paymentId, result.getErrorCode() + ": " + result.getMessage());
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Error releasing reserved balances (will retry): " + e.getMessage());
+            return -1;
+        }
+        sweepRepository.clearReleasePending(released);
+        sweepRepository.recordReleaseFailures(retryable, 0);
+        sweepRepository.recordReleaseFailures(permanent, maxReleaseAttempts);
+        return released.size();
+    }
+
+    private void removeOtps(List<Payment> page) {
+        List<String> ids = new ArrayList<>(page.size());
+        for (Payment payment : page) {
+            ids.add(String.valueOf(payment.getId()));
+        }
+        try {
+            otpStore.removeAll(ids);
+        } catch (Exception e) {
+            System.err.println("Error removing expired OTPs: " + e.getMessage());
+        }
+    }
+}
@@ -4,7 +4,8 @@ import com.example.common_library.dto.*;
 import com.example.common_library.dto.DeductBalanceRequest;
 import com.example.common_library.exception.ApiException;
 import com.example.common_library.exception.ErrorCode;
-import com.example.payment_service.client.NotificationServiceClient;
+import com.example.common_library.otp.OtpStore;
+import com.example.common_library.otp.OtpVerificationResult;
 import com.example.payment_service.client.TuitionServiceClient;
 import com.example.payment_service.client.UserServiceClient;
 import com.example.payment_service.dto.CreatePaymentRequest;
@@ -15,30 +16,53 @@ import com.example.payment_service.model.Payment;
 import com.example.payment_service.model.PaymentStatus;
 import com.example.payment_service.model.TransactionHistory;
 import com.example.payment_service.repository.PaymentRepository;
+import com.example.payment_service.repository.TransactionHistoryExportRepository;
 import com.example.payment_service.repository.TransactionHistoryRepository;
+import com.example.payment_service.service.NotificationDispatcher;
 import com.example.payment_service.service.PaymentService;
+import com.example.payment_service.service.TuitionCacheService;
+import feign.Response;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 @Service
 public class PaymentServiceImp implements PaymentService {
 
-    private static final String OTP_PREFIX = "payment:otp:";
     private static final int OTP_EXPIRE_MINUTES = 1;
 
-    // Thêm constants
-    private static final String OTP_ATTEMPT_PREFIX = "payment:otp:attempt:";
     private static final int MAX_OTP_ATTEMPTS = 3;
 
+    // Số dòng lịch sử được bổ sung thông tin học phí mỗi lần khi export
+    private static final int HISTORY_EXPORT_CHUNK_SIZE = 500;
+
     @Autowired
     private PaymentRepository paymentRepository;
 
@@ -49,19 +73,54 @@ public class PaymentServiceImp implements PaymentService {
     private TuitionServiceClient tuitionServiceClient;
     
     @Autowired
-    private NotificationServiceClient notificationServiceClient;
+    private TuitionCacheService tuitionCacheService;
+
+    @Autowired
+    private NotificationDispatcher notificationDispatcher;
 
     @Autowired
     private TransactionHistoryRepository transactionHistoryRepository;
     
     @Autowired
-    private StringRedisTemplate redisTemplate;
+    private OtpStore otpStore;
+
+    @Autowired
+    @Qualifier("paymentLookupExecutor")
+    private Executor lookupExecutor;
+
+    // true: lấy học phí, user và payment đang chờ song song thay vì tuần tự
+    @Value("${payment.lookup.parallel:true}")
+    private boolean parallelLookups;
+
+    @Value("${payment.lookup.timeout-ms:3000}")
+    private long lookupTimeoutMs;
+
+    @Autowired
+    private TransactionHistoryExportRepository transactionHistoryExportRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${payment.history.default-page-size:20}")
+    private int historyDefaultPageSize;
+
+    @Value("${payment.history.max-page-size:100}")
+    private int historyMaxPageSize;
 
     @Override
     public Payment createPayment(CreatePaymentRequest request) {
+        Payment payment = null;
         try {
+            // Các lời gọi đọc độc lập, được phát đi cùng lúc nếu bật chế độ song song
+            Supplier<TuitionDTO> tuitionLookup = lookup("tuition-service",
+                () -> getTuition(request.getTuitionCode()));
+            Supplier<List<Payment>> pendingLookup = lookup("pending payments",
+                () -> paymentRepository.findByTuitionCodeAndStatus(request.getTuitionCode(), PaymentStatus.PENDING_OTP));
+            Supplier<UserResponse> userLookup = lookup("user-service",
+                () -> getUser(request.getUserId()));
+
             // Kiểm tra học phí tồn tại
-            TuitionDTO tuition = getTuition(request.getTuitionCode());
+            TuitionDTO tuition = tuitionLookup.get();
             if (tuition == null) {
                 throw new ApiException(ErrorCode.TUITION_NOT_FOUND);
             }
@@ -73,8 +132,7 @@ public class PaymentServiceImp implements PaymentService {
             }
             
             // Kiểm tra có giao dịch đang chờ xác thực OTP cho học phí này không
-            List<Payment> pendingPayments = paymentRepository.findByTuitionCodeAndStatus(
-                request.getTuitionCode(), PaymentStatus.PENDING_OTP);
+            List<Payment> pendingPayments = pendingLookup.get();
 
             if (!pendingPayments.isEmpty()) {
                 Payment pendingPayment = pendingPayments.get(0);
@@ -84,7 +142,8 @@ public class PaymentServiceImp implements PaymentService {
                                     pendingPayment.getOtpExpiredAt().isBefore(LocalDateTime.now());
                                     
                 if (isExpired) {
-                    // Nếu đã hết hạn, xóa để tạo mới
+                    // Nếu đã hết hạn, giải phóng reservation rồi xóa để tạo mới
+                    releaseReservation(pendingPayment);
                     paymentRepository.delete(pendingPayment);
                 } else if (pendingPayment.getUserId().equals(request.getUserId())) {
                     // Nếu là cùng người dùng và chưa hết hạn
@@ -105,7 +164,7 @@ public class PaymentServiceImp implements PaymentService {
             }
             
             // Kiểm tra user tồn tại
-            UserResponse user = getUser(request.getUserId());
+            UserResponse user = userLookup.get();
             if (user == null) {
                 throw new ApiException(ErrorCode.USER_NOT_FOUND);
             }
@@ -115,9 +174,22 @@ public class PaymentServiceImp implements PaymentService {
             }
 
             
-            // Khóa tạm thời số dư ngay khi tạo giao dịch
+            // Sinh OTP
+            String otp = String.valueOf(100000 + new Random().nextInt(900000));
+            
+            // Lưu payment trước để có id gắn với reservation số dư
+            payment = new Payment();
+            payment.setUserId(request.getUserId());
+            payment.setTuitionCode(request.getTuitionCode());
+            payment.setAmount(request.getAmount());
+            payment.setStatus(PaymentStatus.PENDING_OTP);
+            payment.setOtpExpiredAt(LocalDateTime.now().plusMinutes(OTP_EXPIRE_MINUTES));
+            payment = paymentRepository.save(payment);
+
+            // Khóa tạm thời số dư cho payment này
             DeductBalanceRequest reserveRequest = new DeductBalanceRequest();
             reserveRequest.setAmount(paymentAmount);
+            reserveRequest.setPaymentId(payment.getId());
             
             try {
                 userServiceClient.reserveBalance(request.getUserId(), reserveRequest);
@@ -135,29 +207,15 @@ public class PaymentServiceImp implements PaymentService {
                 throw e;
             }
             
-            // Sinh OTP
-            String otp = String.valueOf(100000 + new Random().nextInt(900000));
-            
-            // Lưu thông tin payment
-            Payment payment = new Payment();
-            payment.setUserId(request.getUserId());
-            payment.setTuitionCode(request.getTuitionCode());
-            payment.setAmount(request.getAmount());
-            payment.setStatus(PaymentStatus.PENDING_OTP);
-            payment.setOtpExpiredAt(LocalDateTime.now().plusMinutes(OTP_EXPIRE_MINUTES));
-            payment = paymentRepository.save(payment);
-            
-            // Lưu OTP vào Redis với thời gian hết hạn
-            String redisKey = OTP_PREFIX + payment.getId();
-            redisTemplate.opsForValue().set(redisKey, otp);
-            redisTemplate.expire(redisKey, OTP_EXPIRE_MINUTES, TimeUnit.MINUTES);
+            // Lưu OTP vào Redis với thời gian hết hạn (một lệnh SET ... PX)
+            otpStore.save(String.valueOf(payment.getId()), otp, Duration.ofMinutes(OTP_EXPIRE_MINUTES));
 
-            // Gửi OTP qua NotificationService
+            // Gửi OTP qua NotificationService (bất đồng bộ, đã lưu vào outbox)
             OtpEmailRequest otpRequest = new OtpEmailRequest();
             otpRequest.setToEmail(user.getEmail());
             otpRequest.setOtpCode(otp);
             otpRequest.setExpireMinutes(OTP_EXPIRE_MINUTES);
-            notificationServiceClient.sendOtp(otpRequest);
+            notificationDispatcher.sendOtp(otpRequest);
 
             // Lưu lịch sử giao dịch khi tạo phiên thanh toán - PENDING
             saveTransactionHistory(payment, "PENDING", "Payment session created, waiting for OTP verification");
@@ -165,50 +223,42 @@ public class PaymentServiceImp implements PaymentService {
             return payment;
             
         } catch (ApiException e) {
-            // Nếu có lỗi nghiệp vụ, giải phóng số dư đã khóa (nếu có)
-            try {
-                if (request.getUserId() != null && request.getAmount() > 0) {
-                    DeductBalanceRequest releaseRequest = new DeductBalanceRequest();
-                    releaseRequest.setAmount(BigDecimal.valueOf(request.getAmount()));
-                    userServiceClient.releaseBalance(request.getUserId(), releaseRequest);
-                }
-            } catch (Exception ignored) {
-                // Không xử lý lỗi khi giải phóng số dư
-            }
-            
-            // Xử lý lỗi như hiện tại...
-            Payment failedPayment = new Payment();
-            failedPayment.setUserId(request.getUserId());
-            failedPayment.setTuitionCode(request.getTuitionCode());
-            failedPayment.setAmount(request.getAmount());
-            failedPayment.setStatus(PaymentStatus.FAILED);
-            failedPayment = paymentRepository.save(failedPayment);
-            
+            Payment failedPayment = failPayment(payment, request);
             saveTransactionHistory(failedPayment, "FAILED", "Payment failed: " + e.getMessage());
             throw e;
             
         } catch (Exception e) {
-            // Nếu có lỗi hệ thống, giải phóng số dư đã khóa (nếu có)
-            try {
-                if (request.getUserId() != null && request.getAmount() > 0) {
-                    DeductBalanceRequest releaseRequest = new DeductBalanceRequest();
-                    releaseRequest.setAmount(BigDecimal.valueOf(request.getAmount()));
-                    userServiceClient.releaseBalance(request.getUserId(), releaseRequest);
-                }
-            } catch (Exception ignored) {
-                // Không xử lý lỗi khi giải phóng số dư
-            }
-            
-            // Xử lý lỗi như hiện tại...
+            Payment failedPayment = failPayment(payment, request);
+            saveTransactionHistory(failedPayment, "FAILED", "System error: " + e.getMessage());
+            throw new ApiException(ErrorCode.INTERNAL_ERROR, "Payment creation failed: " + e.getMessage());
+        }
+    }
+
+    // Đánh dấu payment lỗi khi tạo; nếu payment đã được lưu thì giải phóng reservation của nó (bỏ qua nếu chưa khóa)
+    private Payment failPayment(Payment payment, CreatePaymentRequest request) {
+        if (payment == null || payment.getId() == null) {
             Payment failedPayment = new Payment();
             failedPayment.setUserId(request.getUserId());
             failedPayment.setTuitionCode(request.getTuitionCode());
             failedPayment.setAmount(request.getAmount());
             failedPayment.setStatus(PaymentStatus.FAILED);
-            failedPayment = paymentRepository.save(failedPayment);
-            
-            saveTransactionHistory(failedPayment, "FAILED", "System error: " + e.getMessage());
-            throw new ApiException(ErrorCode.INTERNAL_ERROR, "Payment creation failed: " + e.getMessage());
+            return paymentRepository.save(failedPayment);
+        }
+
+        releaseReservation(payment);
+        payment.setStatus(PaymentStatus.FAILED);
+        return paymentRepository.save(payment);
+    }
+
+    // Release theo payment id nên gọi lại nhiều lần vẫn an toàn
+    private void releaseReservation(Payment payment) {
+        try {
+            DeductBalanceRequest releaseRequest = new DeductBalanceRequest();
+            releaseRequest.setAmount(BigDecimal.valueOf(payment.getAmount()));
+            releaseRequest.setPaymentId(payment.getId());
+            userServiceClient.releaseBalance(payment.getUserId(), releaseRequest);
+        } catch (Exception ignored) {
+            // Không xử lý lỗi khi giải phóng số dư
         }
     }
 
@@ -221,8 +271,8 @@ public class PaymentServiceImp implements PaymentService {
             throw new ApiException(ErrorCode.PAYMENT_ALREADY_SUCCESS);
         }
         
-        // Kiểm tra trạng thái học phí lần nữa để tránh race condition
-        TuitionDTO tuition = getTuition(payment.getTuitionCode());
+        // Kiểm tra trạng thái học phí lần nữa để tránh race condition (không dùng cache)
+        TuitionDTO tuition = refreshTuition(payment.getTuitionCode());
         if (tuition == null) {
             throw new ApiException(ErrorCode.TUITION_NOT_FOUND);
         }
@@ -234,62 +284,47 @@ public class PaymentServiceImp implements PaymentService {
                 "Học phí này đã được thanh toán bởi người khác.");
         }
         
-        // Kiểm tra OTP từ Redis
-        String redisKey = OTP_PREFIX + paymentId;
-        String storedOtp = redisTemplate.opsForValue().get(redisKey);
-        
-        if (storedOtp == null) {
+        // Kiểm tra OTP: so sánh, đếm số lần sai và xóa mã được thực hiện nguyên tử phía Redis
+        OtpVerificationResult otpResult = otpStore.verify(String.valueOf(paymentId), otpCode, MAX_OTP_ATTEMPTS);
+
+        if (otpResult == OtpVerificationResult.EXPIRED) {
             payment.setStatus(PaymentStatus.FAILED);
             paymentRepository.save(payment);
             saveTransactionHistory(payment, "FAILED", "OTP expired or not found");
             throw new ApiException(ErrorCode.OTP_EXPIRED);
         }
-        
-        if (!storedOtp.equals(otpCode)) {
-            // Tăng số lần thử OTP không hợp lệ
-            String attemptKey = OTP_ATTEMPT_PREFIX + paymentId;
-            Integer attemptCount = redisTemplate.opsForValue().increment(attemptKey, 1).intValue();
-            redisTemplate.expire(attemptKey, OTP_EXPIRE_MINUTES, TimeUnit.MINUTES);
-            
-            // Kiểm tra đã vượt quá số lần thử tối đa chưa
-            if (attemptCount >= MAX_OTP_ATTEMPTS) {
-                payment.setStatus(PaymentStatus.FAILED);
-                paymentRepository.save(payment);
-                saveTransactionHistory(payment, "FAILED", "Too many invalid OTP attempts");
-                
-                // Xử lý OTP sai như hiện tại...
-                try {
-                    DeductBalanceRequest releaseRequest = new DeductBalanceRequest();
-                    releaseRequest.setAmount(BigDecimal.valueOf(payment.getAmount()));
-                    userServiceClient.releaseBalance(payment.getUserId(), releaseRequest);
-                } catch (Exception ignored) {
-                    // Không xử lý lỗi khi giải phóng số dư
-                }
-                
-                throw new ApiException(ErrorCode.OTP_INVALID, "Bạn đã nhập sai OTP quá nhiều lần. Giao dịch bị từ chối.");
-            }
-            
+
+        if (otpResult == OtpVerificationResult.TOO_MANY_ATTEMPTS) {
+            payment.setStatus(PaymentStatus.FAILED);
+            paymentRepository.save(payment);
+            saveTransactionHistory(payment, "FAILED", "Too many invalid OTP attempts");
+
+            releaseReservation(payment);
+
+            throw new ApiException(ErrorCode.OTP_INVALID, "Bạn đã nhập sai OTP quá nhiều lần. Giao dịch bị từ chối.");
+        }
+
+        if (otpResult == OtpVerificationResult.INVALID) {
             saveTransactionHistory(payment, "FAILED", "Invalid OTP provided");
             throw new ApiException(ErrorCode.OTP_INVALID);
         }
-        
+
+        // OTP đúng và đã bị xóa khỏi Redis, không dùng lại được nữa
         try {
             // Trừ số dư user qua UserService - số dư đã được khóa trước đó
             DeductBalanceRequest deductRequest = new DeductBalanceRequest();
             deductRequest.setAmount(BigDecimal.valueOf(payment.getAmount()));
+            deductRequest.setPaymentId(payment.getId());
             userServiceClient.deductBalance(payment.getUserId(), deductRequest);
                 
             // Cập nhật trạng thái payment thành công
             payment.setStatus(PaymentStatus.SUCCESS);
             paymentRepository.save(payment);
-            
-            // Xóa OTP từ Redis sau khi xác thực thành công
-            redisTemplate.delete(redisKey);
 
             // Lưu lịch sử giao dịch thành công
             saveTransactionHistory(payment, "SUCCESS", "Payment successful");
 
-            // Gửi email xác nhận thành công qua NotificationService
+            // Gửi email xác nhận thành công qua NotificationService (bất đồng bộ)
             PaymentSuccessEmailRequest successRequest = new PaymentSuccessEmailRequest();
             UserResponse user = getUser(payment.getUserId());
             successRequest.setToEmail(user.getEmail());
@@ -297,7 +332,7 @@ public class PaymentServiceImp implements PaymentService {
             successRequest.setTuitionCode(payment.getTuitionCode());
             successRequest.setAmount(BigDecimal.valueOf(payment.getAmount()));
             successRequest.setSemester(getSemester(payment.getTuitionCode()));
-            notificationServiceClient.sendPaymentSuccess(successRequest);
+            notificationDispatcher.sendPaymentSuccess(successRequest);
 
             // Cập nhật trạng thái tuition sang "Đã thanh toán"
             updateTuitionStatus(payment.getTuitionCode(), "Đã thanh toán");
@@ -306,17 +341,10 @@ public class PaymentServiceImp implements PaymentService {
             
         } catch (Exception e) {
             // Nếu lỗi khi trừ tiền, giải phóng số dư đã khóa
-            try {
-                DeductBalanceRequest releaseRequest = new DeductBalanceRequest();
-                releaseRequest.setAmount(BigDecimal.valueOf(payment.getAmount()));
-                userServiceClient.releaseBalance(payment.getUserId(), releaseRequest);
-            } catch (Exception ignored) {
-                // Không xử lý lỗi khi giải phóng số dư
-            }
+            releaseReservation(payment);
             
             payment.setStatus(PaymentStatus.FAILED);
             paymentRepository.save(payment);
-            redisTemplate.delete(redisKey);
             saveTransactionHistory(payment, "FAILED", "Payment verification failed: " + e.getMessage());
             
             if (e instanceof ApiException) {
@@ -336,6 +364,60 @@ public class PaymentServiceImp implements PaymentService {
     @Override
     public List<TransactionHistoryDTO> getTransactionHistoryWithTuition(Long userId) {
         List<TransactionHistory> histories = transactionHistoryRepository.findByUserId(userId);
+        return toHistoryDTOs(histories);
+    }
+
+    @Override
+    public TransactionHistoryPage getTransactionHistoryPage(Long userId, String cursor, Integer size) {
+        int pageSize = size == null ? historyDefaultPageSize : Math.max(1, Math.min(size, historyMaxPageSize));
+        // Lấy thêm 1 dòng để biết còn trang sau hay không
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        List<TransactionHistory> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = transactionHistoryRepository.findByUserIdOrderByCreatedAtDescIdDesc(userId, limit);
+        } else {
+            String[] parts = decodeHistoryCursor(cursor);
+            rows = transactionHistoryRepository.findPageAfter(
+                userId, LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]), limit);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            TransactionHistory last = rows.get(rows.size() - 1);
+            nextCursor = encodeHistoryCursor(last.getCreatedAt(), last.getId());
+        }
+        return new TransactionHistoryPage(toHistoryDTOs(rows), nextCursor, hasMore);
+    }
+
+    @Override
+    public void exportTransactionHistory(Long userId, OutputStream out) {
+        // Đọc từ con trỏ JDBC, bổ sung thông tin học phí theo từng nhóm nhỏ rồi ghi ngay ra response
+        List<TransactionHistory> buffer = new ArrayList<>(HISTORY_EXPORT_CHUNK_SIZE);
+        transactionHistoryExportRepository.streamByUserId(userId, h -> {
+            buffer.add(h);
+            if (buffer.size() >= HISTORY_EXPORT_CHUNK_SIZE) {
+                writeNdjson(out, buffer);
+                buffer.clear();
+            }
+        });
+        writeNdjson(out, buffer);
+    }
+
+    private List<TransactionHistoryDTO> toHistoryDTOs(List<TransactionHistory> histories) {
+        // Lấy thông tin học phí cho tất cả mã (không trùng) trong một lần gọi
+        Set<String> tuitionCodes = new HashSet<>();
+        for (TransactionHistory h : histories) {
+            if (h.getTuitionCode() != null && !h.getTuitionCode().isEmpty()) {
+                tuitionCodes.add(h.getTuitionCode());
+            }
+        }
+        Map<String, TuitionDTO> tuitions = getTuitions(tuitionCodes);
+
         List<TransactionHistoryDTO> result = new ArrayList<>();
         for (TransactionHistory h : histories) {
             TransactionHistoryDTO dto = new TransactionHistoryDTO();
@@ -347,32 +429,123 @@ public class PaymentServiceImp implements PaymentService {
             dto.setMessage(h.getMessage());
             dto.setCreatedAt(h.getCreatedAt());
             
-            if (h.getTuitionCode() != null && !h.getTuitionCode().isEmpty()) {
-                TuitionDTO tuition = getTuition(h.getTuitionCode());
-                if (tuition != null) {
-                    dto.setTuitionAmount(tuition.getAmount());
-                    dto.setSemester(tuition.getSemester());
-                }
+            TuitionDTO tuition = tuitions.get(h.getTuitionCode());
+            if (tuition != null) {
+                dto.setTuitionAmount(tuition.getAmount());
+                dto.setSemester(tuition.getSemester());
             }
             result.add(dto);
         }
         return result;
     }
 
+    private void writeNdjson(OutputStream out, List<TransactionHistory> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            for (TransactionHistoryDTO dto : toHistoryDTOs(rows)) {
+                out.write(objectMapper.writeValueAsBytes(dto));
+                out.write('\n');
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String encodeHistoryCursor(LocalDateTime createdAt, Long id) {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeHistoryCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            LocalDateTime.parse(parts[0]);
+            Long.parseLong(parts[1]);
+            return parts;
+        } catch (RuntimeException e) {
+            throw new ApiException(ErrorCode.BAD_REQUEST, "Invalid history cursor");
+        }
+    }
+
     @Override
     public List<TuitionDTO> getAllTuition() {
         return tuitionServiceClient.getAllTuition();
     }
 
+    @Override
+    public void exportAllTuition(OutputStream out) {
+        try (Response response = tuitionServiceClient.exportAllTuition()) {
+            if (response.status() >= 400 || response.body() == null) {
+                throw new ApiException(ErrorCode.INTERNAL_ERROR,
+                    "Failed to export tuitions: tuition-service returned " + response.status());
+            }
+            try (InputStream in = response.body().asInputStream()) {
+                in.transferTo(out);
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     // Helper methods
+
+    // Chế độ tuần tự: trả về chính lời gọi, thực hiện khi cần.
+    // Chế độ song song: gửi lời gọi ngay lên executor, get() chờ kết quả với timeout riêng cho từng lời gọi.
+    private <T> Supplier<T> lookup(String name, Supplier<T> call) {
+        if (!parallelLookups) {
+            return call;
+        }
+        CompletableFuture<T> future = CompletableFuture.supplyAsync(call, lookupExecutor)
+            .orTimeout(lookupTimeoutMs, TimeUnit.MILLISECONDS);
+        return () -> {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof TimeoutException) {
+                    throw new ApiException(ErrorCode.INTERNAL_ERROR,
+                        "Timed out after " + lookupTimeoutMs + "ms waiting for " + name);
+                }
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        };
+    }
+
     private TuitionDTO getTuition(String tuitionCode) {
         try {
-            return tuitionServiceClient.getTuition(tuitionCode);
+            return tuitionCacheService.getTuition(tuitionCode);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private TuitionDTO refreshTuition(String tuitionCode) {
+        try {
+            return tuitionCacheService.refreshTuition(tuitionCode);
         } catch (Exception e) {
             return null;
         }
     }
 
+    private Map<String, TuitionDTO> getTuitions(Set<String> tuitionCodes) {
+        if (tuitionCodes.isEmpty()) {
+            return new HashMap<>();
+        }
+        try {
+            return tuitionCacheService.getTuitions(tuitionCodes);
+        } catch (Exception e) {
+            System.err.println("Error fetching tuitions in batch: " + e.getMessage());
+            return new HashMap<>();
+        }
+    }
+
     private UserResponse getUser(Long userId) {
         try {
             return userServiceClient.getUser(userId);
@@ -404,50 +577,9 @@ public class PaymentServiceImp implements PaymentService {
         StatusUpdateDTO statusUpdateDTO = new StatusUpdateDTO();
         statusUpdateDTO.setStatus(newStatus);
         try {
-            tuitionServiceClient.updateTuitionStatus(tuitionCode, statusUpdateDTO);
+            tuitionCacheService.updateTuitionStatus(tuitionCode, statusUpdateDTO);
         } catch (Exception e) {
             System.out.println("Error updating tuition status: " + e.getMessage());
         }
     }
-
-    @Scheduled(fixedRate = 60000) // Chạy mỗi phút
-    public void cleanupExpiredPayments() {
-        try {
-            System.out.println("Running scheduled cleanup of expired payments: " + LocalDateTime.now());
-            
-            List<Payment> expiredPayments = paymentRepository.findByStatusAndOtpExpiredAtBefore(
-                PaymentStatus.PENDING_OTP, LocalDateTime.now());
-                
-            System.out.println("Found " + expiredPayments.size() + " expired payments");
-            
-            for (Payment payment : expiredPayments) {
-                System.out.println("Processing expired payment ID: " + payment.getId() + 
-                    ", expired at: " + payment.getOtpExpiredAt());
-                    
-                // Giải phóng số dư đã khóa
-                try {
-                    DeductBalanceRequest releaseRequest = new DeductBalanceRequest();
-                    releaseRequest.setAmount(BigDecimal.valueOf(payment.getAmount()));
-                    userServiceClient.releaseBalance(payment.getUserId(), releaseRequest);
-                    System.out.println("Released reserved balance for payment ID: " + payment.getId());
-                } catch (Exception e) {
-                    System.err.println("Error releasing reserved balance: " + e.getMessage());
-                }
-                
-                payment.setStatus(PaymentStatus.FAILED);
-                paymentRepository.save(payment);
-                System.out.println("Updated payment status to FAILED for ID: " + payment.getId());
-                
-                saveTransactionHistory(payment, "FAILED", "OTP expired automatically");
-                System.out.println("Saved transaction history for expired payment ID: " + payment.getId());
-                
-                // Xóa OTP từ Redis
-                String redisKey = OTP_PREFIX + payment.getId();
-                redisTemplate.delete(redisKey);
-            }
-        } catch (Exception e) {
-            System.err.println("Error in cleanup task: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
 }
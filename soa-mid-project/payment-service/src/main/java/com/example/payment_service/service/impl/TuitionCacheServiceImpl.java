@@ -0,0 +1,181 @@
+package com.example.payment_service.service.impl;
+
+import com.example.common_library.cache.TtlCache;
+import com.example.common_library.dto.StatusUpdateDTO;
+import com.example.common_library.dto.TuitionDTO;
+import com.example.payment_service.client.TuitionServiceClient;
+import com.example.payment_service.dto.TuitionCacheStats;
+import com.example.payment_service.service.TuitionCacheService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class TuitionCacheServiceImpl implements TuitionCacheService {
+
+    private static final String REDIS_PREFIX = "payment:tuition:";
+
+    @Autowired
+    private TuitionServiceClient tuitionServiceClient;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${payment.tuition-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${payment.tuition-cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    @Value("${payment.tuition-cache.redis-enabled:false}")
+    private boolean redisEnabled;
+
+    @Value("${payment.tuition-cache.redis-ttl-seconds:60}")
+    private long redisTtlSeconds;
+
+    private TtlCache<String, TuitionDTO> cache;
+
+    private final AtomicLong redisHits = new AtomicLong();
+    private final AtomicLong redisMisses = new AtomicLong();
+    private final AtomicLong remoteLoads = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        cache = new TtlCache<>(maxSize, Duration.ofSeconds(ttlSeconds));
+    }
+
+    @Override
+    public TuitionDTO getTuition(String tuitionCode) {
+        TuitionDTO tuition = cache.get(tuitionCode);
+        if (tuition != null) {
+            return tuition;
+        }
+        tuition = getFromRedis(tuitionCode);
+        if (tuition != null) {
+            cache.put(tuitionCode, tuition);
+            return tuition;
+        }
+        return refreshTuition(tuitionCode);
+    }
+
+    @Override
+    public TuitionDTO refreshTuition(String tuitionCode) {
+        remoteLoads.incrementAndGet();
+        TuitionDTO tuition = tuitionServiceClient.getTuition(tuitionCode);
+        store(tuition);
+        return tuition;
+    }
+
+    @Override
+    public Map<String, TuitionDTO> getTuitions(Collection<String> tuitionCodes) {
+        Map<String, TuitionDTO> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String code : tuitionCodes) {
+            TuitionDTO tuition = cache.get(code);
+            if (tuition == null) {
+                tuition = getFromRedis(code);
+                if (tuition != null) {
+                    cache.put(code, tuition);
+                }
+            }
+            if (tuition != null) {
+                result.put(code, tuition);
+            } else {
+                missing.add(code);
+            }
+        }
+        if (!missing.isEmpty()) {
+            remoteLoads.incrementAndGet();
+            for (TuitionDTO tuition : tuitionServiceClient.getTuitionsByCodes(missing)) {
+                store(tuition);
+                result.put(tuition.getTuitionCode(), tuition);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public TuitionDTO updateTuitionStatus(String tuitionCode, StatusUpdateDTO statusUpdate) {
+        // Xóa trước khi gọi để không ai đọc được trạng thái cũ trong lúc cập nhật
+        invalidate(tuitionCode);
+        try {
+            return tuitionServiceClient.updateTuitionStatus(tuitionCode, statusUpdate);
+        } finally {
+            invalidate(tuitionCode);
+        }
+    }
+
+    @Override
+    public void invalidate(String tuitionCode) {
+        invalidations.incrementAndGet();
+        cache.invalidate(tuitionCode);
+        if (redisEnabled) {
+            try {
+                redisTemplate.delete(REDIS_PREFIX + tuitionCode);
+            } catch (Exception e) {
+                System.err.println("Error invalidating tuition in Redis: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public TuitionCacheStats getStats() {
+        TuitionCacheStats stats = new TuitionCacheStats();
+        stats.setLocal(cache.stats());
+        stats.setRedisEnabled(redisEnabled);
+        stats.setRedisHits(redisHits.get());
+        stats.setRedisMisses(redisMisses.get());
+        stats.setRemoteLoads(remoteLoads.get());
+        stats.setInvalidations(invalidations.get());
+        return stats;
+    }
+
+    private void store(TuitionDTO tuition) {
+        if (tuition == null || tuition.getTuitionCode() == null) {
+            return;
+        }
+        cache.put(tuition.getTuitionCode(), tuition);
+        if (redisEnabled) {
+            try {
+                redisTemplate.opsForValue().set(REDIS_PREFIX + tuition.getTuitionCode(),
+                    objectMapper.writeValueAsString(tuition), Duration.ofSeconds(redisTtlSeconds));
+            } catch (Exception e) {
+                System.err.println("Error caching tuition in Redis: " + e.getMessage());
+            }
+        }
+    }
+
+    // Redis chỉ là lớp cache phụ: lỗi Redis được coi như không có dữ liệu
+    private TuitionDTO getFromRedis(String tuitionCode) {
+        if (!redisEnabled) {
+            return null;
+        }
+        try {
+            String json = redisTemplate.opsForValue().get(REDIS_PREFIX + tuitionCode);
+            if (json == null) {
+                redisMisses.incrementAndGet();
+                return null;
+            }
+            redisHits.incrementAndGet();
+            return objectMapper.readValue(json, TuitionDTO.class);
+        } catch (Exception e) {
+            System.err.println("Error reading tuition from Redis: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -12,7 +12,13 @@ CREATE TABLE payments (
                           otp_expired_at TIMESTAMP,             -- Hạn OTP
 
                           created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                          updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+                          updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+                          -- TRUE khi payment đã FAILED nhưng user-service chưa xác nhận giải phóng số dư
+                          balance_release_pending BOOLEAN NOT NULL DEFAULT FALSE,
+                          balance_release_attempts INT NOT NULL DEFAULT 0,  -- Số lần user-service từ chối RELEASE
+                          balance_release_error TEXT,                       -- Lỗi RELEASE gần nhất
+                          INDEX idx_payments_status_expired (status, otp_expired_at),  -- Dọn payment hết hạn OTP
+                          INDEX idx_payments_release_pending (balance_release_pending, id)  -- Thử lại giải phóng số dư
 );
 
 CREATE TABLE transaction_history (
@@ -23,5 +29,24 @@ CREATE TABLE transaction_history (
     amount DECIMAL(15,2),
     status VARCHAR(20),         
     message TEXT,               -- Thay VARCHAR(255) thành TEXT
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_history_user_created (user_id, created_at, id)  -- Phân trang keyset theo user
 );
+
+-- Không DROP bảng này để email chưa gửi vẫn còn sau khi restart
+CREATE TABLE IF NOT EXISTS notification_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    type VARCHAR(30) NOT NULL,          -- OTP, PAYMENT_SUCCESS
+    payload TEXT NOT NULL,              -- Request gửi notification-service (JSON)
+    status VARCHAR(20) NOT NULL,        -- PENDING, FAILED
+    attempts INT NOT NULL DEFAULT 0,
+    last_error TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    claimed_by VARCHAR(64),             -- Instance đang giữ email để gửi
+    lease_until TIMESTAMP NULL,         -- Hết hạn thì instance khác được nhận lại
+    INDEX idx_outbox_status_created (status, created_at),
+    INDEX idx_outbox_status_lease (status, lease_until)
+);
+-- Bảng payments được tạo lại mỗi lần khởi động nên email OTP còn lại trỏ tới payment không còn tồn tại
+-- (và chứa mã OTP dạng rõ): xóa cùng lúc với payments, chỉ giữ các email khác
+DELETE FROM notification_outbox WHERE type = 'OTP';
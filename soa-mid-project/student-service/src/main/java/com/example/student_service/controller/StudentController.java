@@ -2,22 +2,32 @@ package com.example.student_service.controller;
 
 import com.example.student_service.dto.CreateStudentRequest;
 import com.example.student_service.dto.StudentDTO;
+import com.example.student_service.dto.StudentImportResult;
+import com.example.student_service.dto.StudentPage;
 import com.example.student_service.model.Student;
+import com.example.student_service.service.StudentImportService;
 import com.example.student_service.service.StudentService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping ("/api/students")
 public class StudentController {
 
     private final StudentService studentService;
+    private final StudentImportService studentImportService;
 
-    public StudentController(StudentService studentService) {
+    public StudentController(StudentService studentService, StudentImportService studentImportService) {
         this.studentService = studentService;
+        this.studentImportService = studentImportService;
     }
 
     @GetMapping
@@ -26,6 +36,35 @@ public class StudentController {
         return ResponseEntity.ok(students);
     }
 
+    // Phân trang: truyền page để dùng offset, hoặc cursor (nextCursor của trang trước) để dùng keyset
+    @GetMapping("/page")
+    public ResponseEntity<StudentPage> getStudentPage(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(studentService.getStudentPage(page, cursor, size));
+    }
+
+    // Tìm theo tiền tố mã, tên chứa chuỗi (không phân biệt hoa thường), email chính xác; phân trang bằng cursor
+    @GetMapping("/search")
+    public ResponseEntity<StudentPage> searchStudents(
+            @RequestParam(required = false) String code,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(studentService.searchStudents(code, name, email, cursor, size));
+    }
+
+    // Xuất toàn bộ sinh viên dạng NDJSON (mỗi dòng một JSON), ghi dần ra response
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportStudents() {
+        StreamingResponseBody body = out -> studentService.exportStudents(out);
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType("application/x-ndjson"))
+            .body(body);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<StudentDTO> getStudentById(@PathVariable("id") int id) {
         StudentDTO student = studentService.findStudentById(id);
@@ -65,4 +104,21 @@ public class StudentController {
         StudentDTO student = studentService.getStudentByCode(studentCode);
         return ResponseEntity.ok(student);
     }
+
+    // Lấy nhiều sinh viên theo mã trong một lần gọi, mã không tồn tại sẽ không có trong kết quả
+    @PostMapping("/batch")
+    public ResponseEntity<List<StudentDTO>> getStudentsByCodes(@RequestBody Set<String> studentCodes) {
+        return ResponseEntity.ok(studentService.getStudentsByCodes(studentCodes));
+    }
+
+    // Nhập sinh viên hàng loạt từ CSV (có dòng tiêu đề) hoặc NDJSON, đọc và ghi theo từng lô
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<StudentImportResult> importStudents(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) {
+        StudentImportResult result = contentType.startsWith("text/csv")
+                ? studentImportService.importCsv(body)
+                : studentImportService.importNdjson(body);
+        return ResponseEntity.ok(result);
+    }
 }
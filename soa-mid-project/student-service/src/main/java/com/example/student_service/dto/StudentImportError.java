@@ -0,0 +1,14 @@
+package com.example.student_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentImportError {
+    private long line;          // Số dòng trong file (tính cả dòng tiêu đề với CSV)
+    private String studentCode;
+    private String message;
+}
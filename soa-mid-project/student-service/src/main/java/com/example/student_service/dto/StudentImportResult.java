@@ -0,0 +1,15 @@
+package com.example.student_service.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class StudentImportResult {
+    private long totalRows;
+    private long imported;
+    private long failed;
+    private List<StudentImportError> errors = new ArrayList<>();
+    private boolean errorsTruncated;   // true nếu số lỗi vượt giới hạn, chỉ giữ các lỗi đầu tiên
+}
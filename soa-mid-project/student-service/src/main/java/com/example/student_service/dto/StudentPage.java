@@ -0,0 +1,16 @@
+package com.example.student_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentPage {
+    private List<StudentDTO> items;
+    private String nextCursor;   // Truyền vào tham số cursor để lấy trang tiếp theo, null nếu đã hết
+    private boolean hasMore;
+}
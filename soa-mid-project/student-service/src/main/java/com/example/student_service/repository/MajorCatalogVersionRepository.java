@@ -0,0 +1,26 @@
+package com.example.student_service.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+// Một dòng duy nhất (id = 1) giữ version của danh mục ngành
+@Repository
+public class MajorCatalogVersionRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MajorCatalogVersionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long currentVersion() {
+        Long version = jdbcTemplate.queryForObject(
+            "SELECT version FROM major_catalog_version WHERE id = 1", Long.class);
+        return version != null ? version : 0L;
+    }
+
+    // Gọi trong cùng transaction với thay đổi ngành
+    public void increment() {
+        jdbcTemplate.update("UPDATE major_catalog_version SET version = version + 1 WHERE id = 1");
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.student_service.repository;
+
+import com.example.student_service.dto.StudentDTO;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.function.Consumer;
+
+// Đọc toàn bộ sinh viên (kèm ngành) bằng con trỏ JDBC chỉ tiến (MySQL streaming result set),
+// mỗi dòng được đưa thẳng cho consumer nên bộ nhớ không tăng theo số dòng.
+@Repository
+public class StudentExportRepository {
+
+    private static final String SELECT_ALL =
+        "SELECT s.id, s.student_code, s.name, s.age, s.email, s.phone, m.code AS major_code, m.name AS major_name " +
+        "FROM student s JOIN major m ON m.id = s.major_id ORDER BY s.id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StudentExportRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        // Integer.MIN_VALUE: MySQL Connector/J trả từng dòng thay vì nạp toàn bộ kết quả
+        this.jdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    public void streamAll(Consumer<StudentDTO> consumer) {
+        jdbcTemplate.query(SELECT_ALL, rs -> {
+            consumer.accept(new StudentDTO(
+                rs.getInt("id"),
+                rs.getString("student_code"),
+                rs.getString("name"),
+                rs.getInt("age"),
+                rs.getString("email"),
+                rs.getString("phone"),
+                rs.getString("major_code"),
+                rs.getString("major_name")
+            ));
+        });
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.student_service.repository;
+
+import com.example.student_service.model.Student;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Kiểm tra trùng và chèn sinh viên theo lô bằng JDBC batch (cần rewriteBatchedStatements=true trong URL MySQL)
+@Repository
+public class StudentImportRepository {
+
+    private static final String INSERT_STUDENT =
+        "INSERT INTO student (student_code, name, age, major_id, email, phone) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StudentImportRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Set<String> findExistingStudentCodes(Collection<String> studentCodes) {
+        return findExisting("student_code", studentCodes);
+    }
+
+    public Set<String> findExistingEmails(Collection<String> emails) {
+        return findExisting("email", emails);
+    }
+
+    public void insertAll(List<Student> students) {
+        jdbcTemplate.batchUpdate(INSERT_STUDENT, students, students.size(), (ps, s) -> {
+            ps.setString(1, s.getStudentCode());
+            ps.setString(2, s.getName());
+            ps.setInt(3, s.getAge());
+            ps.setInt(4, s.getMajor().getId());
+            ps.setString(5, s.getEmail());
+            ps.setString(6, s.getPhone());
+        });
+    }
+
+    private Set<String> findExisting(String column, Collection<String> values) {
+        if (values.isEmpty()) {
+            return Collections.emptySet();
+        }
+        String placeholders = String.join(",", Collections.nCopies(values.size(), "?"));
+        return new HashSet<>(jdbcTemplate.queryForList(
+            "SELECT " + column + " FROM student WHERE " + column + " IN (" + placeholders + ")",
+            String.class, values.toArray()));
+    }
+}
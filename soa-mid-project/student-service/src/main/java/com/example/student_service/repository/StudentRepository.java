@@ -1,9 +1,15 @@
 package com.example.student_service.repository;
 
+import com.example.student_service.dto.StudentDTO;
 import com.example.student_service.model.Student;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,4 +19,33 @@ public interface StudentRepository extends JpaRepository<Student, Integer> {
     List<Student> findByMajorCode(String majorCode);
     boolean existsByStudentCode(String studentCode);
     Optional<Student> findByStudentCode(String studentCode);
+
+    // Đọc thẳng vào StudentDTO (join major trong cùng câu), tránh mỗi sinh viên một câu select major
+    @Query("SELECT new com.example.student_service.dto.StudentDTO(s.id, s.studentCode, s.name, s.age, s.email, s.phone, m.code, m.name) " +
+           "FROM Student s JOIN s.major m ORDER BY s.id")
+    List<StudentDTO> findAllAsDTO();
+
+    @Query("SELECT new com.example.student_service.dto.StudentDTO(s.id, s.studentCode, s.name, s.age, s.email, s.phone, m.code, m.name) " +
+           "FROM Student s JOIN s.major m WHERE m.code = :majorCode ORDER BY s.id")
+    List<StudentDTO> findDTOsByMajorCode(@Param("majorCode") String majorCode);
+
+    @Query("SELECT new com.example.student_service.dto.StudentDTO(s.id, s.studentCode, s.name, s.age, s.email, s.phone, m.code, m.name) " +
+           "FROM Student s JOIN s.major m WHERE s.studentCode = :studentCode")
+    Optional<StudentDTO> findDTOByStudentCode(@Param("studentCode") String studentCode);
+
+    @Query("SELECT new com.example.student_service.dto.StudentDTO(s.id, s.studentCode, s.name, s.age, s.email, s.phone, m.code, m.name) " +
+           "FROM Student s JOIN s.major m WHERE s.studentCode IN :studentCodes")
+    List<StudentDTO> findDTOsByStudentCodes(@Param("studentCodes") Collection<String> studentCodes);
+
+    @Query("SELECT new com.example.student_service.dto.StudentDTO(s.id, s.studentCode, s.name, s.age, s.email, s.phone, m.code, m.name) " +
+           "FROM Student s JOIN s.major m WHERE s.id = :id")
+    Optional<StudentDTO> findDTOById(@Param("id") int id);
+
+    // Phân trang keyset theo id, lấy luôn ngành trong cùng câu truy vấn
+    @Query("SELECT s FROM Student s JOIN FETCH s.major WHERE s.id > :afterId ORDER BY s.id")
+    List<Student> findPageAfter(@Param("afterId") int afterId, Pageable pageable);
+
+    @Query(value = "SELECT s FROM Student s JOIN FETCH s.major",
+           countQuery = "SELECT COUNT(s) FROM Student s")
+    Page<Student> findPage(Pageable pageable);
 }
@@ -0,0 +1,71 @@
+package com.example.student_service.repository;
+
+import com.example.student_service.dto.StudentDTO;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Tìm sinh viên theo tiền tố mã, tên chứa chuỗi và email, phân trang keyset theo id.
+// Mã và email dùng index UNIQUE sẵn có, tên dùng FULLTEXT (ngram) rồi lọc lại bằng LIKE cho chính xác.
+// Index FULLTEXT phải được tạo với bảng stopword rỗng (xem schema.sql), nếu không MATCH bỏ sót tên chứa "an", "ha"...
+// Khi có điều kiện tên, MySQL lấy toàn bộ kết quả MATCH rồi sắp theo id cho mỗi trang, nên tên quá ngắn/phổ biến sẽ chậm.
+@Repository
+public class StudentSearchRepository {
+
+    // Số ký tự tối thiểu để dùng FULLTEXT (bằng ngram_token_size mặc định)
+    private static final int MIN_FULLTEXT_LENGTH = 2;
+
+    private static final String SELECT =
+        "SELECT s.id, s.student_code, s.name, s.age, s.email, s.phone, m.code AS major_code, m.name AS major_name " +
+        "FROM student s JOIN major m ON m.id = s.major_id WHERE s.id > ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StudentSearchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<StudentDTO> search(String codePrefix, String name, String email, int afterId, int limit) {
+        StringBuilder sql = new StringBuilder(SELECT);
+        List<Object> args = new ArrayList<>();
+        args.add(afterId);
+
+        if (codePrefix != null) {
+            sql.append(" AND s.student_code LIKE ? ESCAPE '!'");
+            args.add(escapeLike(codePrefix) + "%");
+        }
+        if (email != null) {
+            sql.append(" AND s.email = ?");
+            args.add(email);
+        }
+        if (name != null) {
+            if (name.length() >= MIN_FULLTEXT_LENGTH) {
+                // Tìm cụm từ trong BOOLEAN MODE: các ngram phải liên tiếp, tương đương "chứa chuỗi"
+                sql.append(" AND MATCH(s.name) AGAINST (? IN BOOLEAN MODE)");
+                args.add("\"" + name.replace("\"", "") + "\"");
+            }
+            // Collation mặc định không phân biệt hoa thường
+            sql.append(" AND s.name LIKE ? ESCAPE '!'");
+            args.add("%" + escapeLike(name) + "%");
+        }
+        sql.append(" ORDER BY s.id LIMIT ?");
+        args.add(limit);
+
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new StudentDTO(
+            rs.getInt("id"),
+            rs.getString("student_code"),
+            rs.getString("name"),
+            rs.getInt("age"),
+            rs.getString("email"),
+            rs.getString("phone"),
+            rs.getString("major_code"),
+            rs.getString("major_name")
+        ), args.toArray());
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+}
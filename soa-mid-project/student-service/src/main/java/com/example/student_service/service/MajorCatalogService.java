@@ -0,0 +1,21 @@
+package com.example.student_service.service;
+
+import com.example.student_service.dto.MajorDTO;
+
+import java.util.List;
+import java.util.Optional;
+
+// Danh mục ngành giữ trong bộ nhớ. Các MajorDTO trả về dùng chung giữa các request, không được sửa.
+public interface MajorCatalogService {
+
+    List<MajorDTO> getAll();
+
+    Optional<MajorDTO> findById(int id);
+
+    Optional<MajorDTO> findByCode(String code);
+
+    boolean existsByCode(String code);
+
+    // Nạp lại snapshot từ DB (gọi sau khi commit thay đổi ngành)
+    void reload();
+}
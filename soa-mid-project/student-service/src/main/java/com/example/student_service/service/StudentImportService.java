@@ -0,0 +1,14 @@
+package com.example.student_service.service;
+
+import com.example.student_service.dto.StudentImportResult;
+
+import java.io.InputStream;
+
+public interface StudentImportService {
+
+    // CSV cần dòng tiêu đề: studentCode,name,age,email,phone,majorCode
+    StudentImportResult importCsv(InputStream in);
+
+    // Mỗi dòng một JSON có cùng trường với CreateStudentRequest
+    StudentImportResult importNdjson(InputStream in);
+}
@@ -2,9 +2,12 @@ package com.example.student_service.service;
 
 import com.example.student_service.dto.CreateStudentRequest;
 import com.example.student_service.dto.StudentDTO;
+import com.example.student_service.dto.StudentPage;
 import com.example.student_service.model.Student;
 import org.springframework.stereotype.Service;
 
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.List;
 
 @Service
@@ -14,6 +17,15 @@ public interface StudentService {
 
     List<StudentDTO> getAllStudents();
 
+    // page != null: phân trang offset; ngược lại phân trang keyset theo cursor
+    StudentPage getStudentPage(Integer page, String cursor, Integer size);
+
+    // Ghi toàn bộ sinh viên ra dạng NDJSON, đọc bằng con trỏ JDBC nên bộ nhớ không phụ thuộc số dòng
+    void exportStudents(OutputStream out);
+
+    // Các điều kiện có giá trị được kết hợp bằng AND, phân trang keyset theo id
+    StudentPage searchStudents(String codePrefix, String name, String email, String cursor, Integer size);
+
     public List<StudentDTO> findStudentsByMajorCode(String majorCode);
 
     StudentDTO createStudent(CreateStudentRequest request);
@@ -23,4 +35,7 @@ public interface StudentService {
     void deleteStudent(int id);
 
     StudentDTO getStudentByCode(String studentCode);
+
+    // Mã không tồn tại sẽ không có trong kết quả
+    List<StudentDTO> getStudentsByCodes(Collection<String> studentCodes);
 }
@@ -0,0 +1,108 @@
+package com.example.student_service.service.impl;
+
+import com.example.student_service.dto.MajorDTO;
+import com.example.student_service.repository.MajorCatalogVersionRepository;
+import com.example.student_service.repository.MajorRepository;
+import com.example.student_service.service.MajorCatalogService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Service
+public class MajorCatalogServiceImpl implements MajorCatalogService {
+
+    private final MajorRepository majorRepository;
+    private final MajorCatalogVersionRepository versionRepository;
+
+    // Snapshot bất biến, thay nguyên khối khi có thay đổi nên đọc không cần khóa
+    private volatile Snapshot snapshot;
+
+    public MajorCatalogServiceImpl(MajorRepository majorRepository,
+                                   MajorCatalogVersionRepository versionRepository) {
+        this.majorRepository = majorRepository;
+        this.versionRepository = versionRepository;
+    }
+
+    @Override
+    public List<MajorDTO> getAll() {
+        return current().all;
+    }
+
+    @Override
+    public Optional<MajorDTO> findById(int id) {
+        return Optional.ofNullable(current().byId.get(id));
+    }
+
+    @Override
+    public Optional<MajorDTO> findByCode(String code) {
+        return code == null ? Optional.empty() : Optional.ofNullable(current().byCode.get(code));
+    }
+
+    @Override
+    public boolean existsByCode(String code) {
+        return code != null && current().byCode.containsKey(code);
+    }
+
+    @Override
+    public synchronized void reload() {
+        // Đọc version trước: nếu có thay đổi chen giữa, lần kiểm tra sau sẽ thấy version lệch và nạp lại
+        long version = versionRepository.currentVersion();
+        List<MajorDTO> all = new ArrayList<>();
+        majorRepository.findAll().forEach(m -> all.add(new MajorDTO(m.getId(), m.getCode(), m.getName())));
+        all.sort(Comparator.comparingInt(MajorDTO::getId));
+
+        Map<Integer, MajorDTO> byId = new HashMap<>();
+        Map<String, MajorDTO> byCode = new HashMap<>();
+        for (MajorDTO major : all) {
+            byId.put(major.getId(), major);
+            byCode.put(major.getCode(), major);
+        }
+        snapshot = new Snapshot(version, List.copyOf(all), Map.copyOf(byId), Map.copyOf(byCode));
+    }
+
+    // Instance khác thêm/sửa/xóa ngành sẽ tăng version, instance này thấy lệch thì nạp lại
+    @Scheduled(fixedDelayString = "${student.major-cache.poll-interval-ms:5000}")
+    public void refreshIfChanged() {
+        Snapshot current = snapshot;
+        try {
+            if (current == null || versionRepository.currentVersion() != current.version) {
+                reload();
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to refresh major catalogue: " + e.getMessage());
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reload();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    private static final class Snapshot {
+        private final long version;
+        private final List<MajorDTO> all;
+        private final Map<Integer, MajorDTO> byId;
+        private final Map<String, MajorDTO> byCode;
+
+        private Snapshot(long version, List<MajorDTO> all, Map<Integer, MajorDTO> byId, Map<String, MajorDTO> byCode) {
+            this.version = version;
+            this.all = all;
+            this.byId = byId;
+            this.byCode = byCode;
+        }
+    }
+}
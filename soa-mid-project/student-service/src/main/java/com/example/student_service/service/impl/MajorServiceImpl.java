@@ -4,41 +4,48 @@ import com.example.common_library.exception.ApiException;
 import com.example.common_library.exception.ErrorCode;
 import com.example.student_service.dto.MajorDTO;
 import com.example.student_service.model.Major;
+import com.example.student_service.repository.MajorCatalogVersionRepository;
 import com.example.student_service.repository.MajorRepository;
+import com.example.student_service.service.MajorCatalogService;
 import com.example.student_service.service.MajorService;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 @Service
 public class MajorServiceImpl implements MajorService {
 
     private final MajorRepository majorRepository;
+    private final MajorCatalogService majorCatalog;
+    private final MajorCatalogVersionRepository versionRepository;
+    private final TransactionTemplate transactionTemplate;
 
-    public MajorServiceImpl(MajorRepository majorRepository) {
+    public MajorServiceImpl(MajorRepository majorRepository, MajorCatalogService majorCatalog,
+                            MajorCatalogVersionRepository versionRepository,
+                            TransactionTemplate transactionTemplate) {
         this.majorRepository = majorRepository;
+        this.majorCatalog = majorCatalog;
+        this.versionRepository = versionRepository;
+        this.transactionTemplate = transactionTemplate;
     }
 
     @Override
     public List<MajorDTO> getAllMajors() {
-        return majorRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return majorCatalog.getAll();
     }
 
     @Override
     public MajorDTO getMajorById(int id) {
-        Major major = majorRepository.findById(id)
+        return majorCatalog.findById(id)
                 .orElseThrow(() -> new ApiException(ErrorCode.MAJOR_NOT_FOUND));
-        return convertToDTO(major);
     }
 
     @Override
     public MajorDTO getMajorByCode(String code) {
-        Major major = majorRepository.findByCode(code)
+        return majorCatalog.findByCode(code)
                 .orElseThrow(() -> new ApiException(ErrorCode.MAJOR_NOT_FOUND));
-        return convertToDTO(major);
     }
 
     @Override
@@ -51,19 +58,19 @@ public class MajorServiceImpl implements MajorService {
         major.setCode(majorDTO.getCode());
         major.setName(majorDTO.getName());
         
-        Major savedMajor = majorRepository.save(major);
+        Major savedMajor = writeAndBumpVersion(() -> majorRepository.save(major));
         return convertToDTO(savedMajor);
     }
 
     @Override
     public MajorDTO updateMajor(int id, MajorDTO majorDTO) {
-        Major major = majorRepository.findById(id)
-                .orElseThrow(() -> new ApiException(ErrorCode.MAJOR_NOT_FOUND));
-        
-        major.setCode(majorDTO.getCode());
-        major.setName(majorDTO.getName());
-        
-        Major updatedMajor = majorRepository.save(major);
+        Major updatedMajor = writeAndBumpVersion(() -> {
+            Major major = majorRepository.findById(id)
+                    .orElseThrow(() -> new ApiException(ErrorCode.MAJOR_NOT_FOUND));
+            major.setCode(majorDTO.getCode());
+            major.setName(majorDTO.getName());
+            return majorRepository.save(major);
+        });
         return convertToDTO(updatedMajor);
     }
 
@@ -72,7 +79,21 @@ public class MajorServiceImpl implements MajorService {
         if (!majorRepository.existsById(id)) {
             throw new ApiException(ErrorCode.MAJOR_NOT_FOUND);
         }
-        majorRepository.deleteById(id);
+        writeAndBumpVersion(() -> {
+            majorRepository.deleteById(id);
+            return null;
+        });
+    }
+
+    // Ghi thay đổi và tăng version trong cùng transaction, sau khi commit thì thay snapshot của instance này
+    private <T> T writeAndBumpVersion(Supplier<T> write) {
+        T result = transactionTemplate.execute(status -> {
+            T value = write.get();
+            versionRepository.increment();
+            return value;
+        });
+        majorCatalog.reload();
+        return result;
     }
 
     private MajorDTO convertToDTO(Major major) {
@@ -0,0 +1,354 @@
+package com.example.student_service.service.impl;
+
+import com.example.common_library.exception.ApiException;
+import com.example.common_library.exception.ErrorCode;
+import com.example.student_service.dto.CreateStudentRequest;
+import com.example.student_service.dto.MajorDTO;
+import com.example.student_service.dto.StudentImportError;
+import com.example.student_service.dto.StudentImportResult;
+import com.example.student_service.model.Major;
+import com.example.student_service.model.Student;
+import com.example.student_service.repository.StudentImportRepository;
+import com.example.student_service.service.MajorCatalogService;
+import com.example.student_service.service.StudentImportService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+public class StudentImportServiceImpl implements StudentImportService {
+
+    private static final List<String> CSV_COLUMNS = List.of("studentcode", "name", "age", "email", "phone", "majorcode");
+
+    private final StudentImportRepository studentImportRepository;
+    private final MajorCatalogService majorCatalog;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    // Số dòng mỗi lô: kiểm tra trùng bằng một câu IN và chèn bằng một JDBC batch
+    @Value("${student.import.batch-size:500}")
+    private int batchSize;
+
+    // Giới hạn số lỗi trả về để báo cáo không phình theo kích thước file
+    @Value("${student.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    public StudentImportServiceImpl(StudentImportRepository studentImportRepository, MajorCatalogService majorCatalog,
+                                    TransactionTemplate transactionTemplate, ObjectMapper objectMapper) {
+        this.studentImportRepository = studentImportRepository;
+        this.majorCatalog = majorCatalog;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public StudentImportResult importCsv(InputStream in) {
+        StudentImportResult result = new StudentImportResult();
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String header = reader.readLine();
+            if (header == null) {
+                throw new ApiException(ErrorCode.BAD_REQUEST, "CSV file is empty");
+            }
+            Map<String, Integer> columns = parseHeader(header);
+
+            long lineNo = 1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                result.setTotalRows(result.getTotalRows() + 1);
+                try {
+                    batch.add(new ImportRow(lineNo, toRequest(parseCsvLine(line), columns)));
+                } catch (IllegalArgumentException e) {
+                    addError(result, lineNo, null, e.getMessage());
+                    continue;
+                }
+                if (batch.size() >= batchSize) {
+                    flush(batch, result);
+                }
+            }
+        } catch (IOException e) {
+            throw new ApiException(ErrorCode.BAD_REQUEST, "Failed to read CSV: " + e.getMessage());
+        }
+        flush(batch, result);
+        return result;
+    }
+
+    @Override
+    public StudentImportResult importNdjson(InputStream in) {
+        StudentImportResult result = new StudentImportResult();
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            long lineNo = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                result.setTotalRows(result.getTotalRows() + 1);
+                CreateStudentRequest request;
+                try {
+                    request = objectMapper.readValue(line, CreateStudentRequest.class);
+                } catch (JsonProcessingException e) {
+                    addError(result, lineNo, null, "Invalid JSON: " + e.getOriginalMessage());
+                    continue;
+                }
+                // Dòng "null" hợp lệ về cú pháp nhưng không phải một sinh viên
+                if (request == null) {
+                    addError(result, lineNo, null, "Row must be a JSON object");
+                    continue;
+                }
+                batch.add(new ImportRow(lineNo, request));
+                if (batch.size() >= batchSize) {
+                    flush(batch, result);
+                }
+            }
+        } catch (IOException e) {
+            throw new ApiException(ErrorCode.BAD_REQUEST, "Failed to read NDJSON: " + e.getMessage());
+        }
+        flush(batch, result);
+        return result;
+    }
+
+    // Kiểm tra và chèn một lô, mỗi lô commit riêng nên các lô sau thấy được mã/email của lô trước
+    private void flush(List<ImportRow> batch, StudentImportResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Set<String> codes = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        List<ImportRow> candidates = new ArrayList<>(batch.size());
+        for (ImportRow row : batch) {
+            CreateStudentRequest req = row.request;
+            String error = validate(req);
+            // UNIQUE index của MySQL không phân biệt hoa thường nên so khớp theo khóa đã chuẩn hóa
+            if (error == null && codes.contains(key(req.getStudentCode()))) {
+                error = "Duplicate student code in file";
+            }
+            if (error == null && emails.contains(key(req.getEmail()))) {
+                error = "Duplicate email in file";
+            }
+            if (error != null) {
+                addError(result, row.line, req.getStudentCode(), error);
+            } else {
+                // Chỉ giữ mã/email của dòng hợp lệ, để dòng bị loại không chặn nhầm dòng sau
+                codes.add(key(req.getStudentCode()));
+                emails.add(key(req.getEmail()));
+                candidates.add(row);
+            }
+        }
+
+        Set<String> existingCodes = keys(studentImportRepository.findExistingStudentCodes(codes));
+        Set<String> existingEmails = keys(studentImportRepository.findExistingEmails(emails));
+
+        List<Student> students = new ArrayList<>(candidates.size());
+        List<ImportRow> accepted = new ArrayList<>(candidates.size());
+        for (ImportRow row : candidates) {
+            CreateStudentRequest req = row.request;
+            if (existingCodes.contains(key(req.getStudentCode()))) {
+                addError(result, row.line, req.getStudentCode(), ErrorCode.STUDENT_ALREADY_EXISTS.getMessage());
+            } else if (existingEmails.contains(key(req.getEmail()))) {
+                addError(result, row.line, req.getStudentCode(), "Email already exists");
+            } else {
+                students.add(toStudent(req));
+                accepted.add(row);
+            }
+        }
+
+        if (!students.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> studentImportRepository.insertAll(students));
+                result.setImported(result.getImported() + students.size());
+            } catch (DataIntegrityViolationException e) {
+                // Request khác vừa chèn trùng nên cả lô rollback: chèn lại từng dòng để chỉ ra đúng dòng bị trùng
+                insertOneByOne(students, accepted, result);
+            }
+        }
+        batch.clear();
+    }
+
+    private void insertOneByOne(List<Student> students, List<ImportRow> rows, StudentImportResult result) {
+        for (int i = 0; i < students.size(); i++) {
+            Student student = students.get(i);
+            ImportRow row = rows.get(i);
+            try {
+                transactionTemplate.executeWithoutResult(status -> studentImportRepository.insertAll(List.of(student)));
+                result.setImported(result.getImported() + 1);
+            } catch (DataIntegrityViolationException e) {
+                String message;
+                if (!studentImportRepository.findExistingStudentCodes(List.of(student.getStudentCode())).isEmpty()) {
+                    message = ErrorCode.STUDENT_ALREADY_EXISTS.getMessage();
+                } else if (!studentImportRepository.findExistingEmails(List.of(student.getEmail())).isEmpty()) {
+                    message = "Email already exists";
+                } else {
+                    message = "Rejected by database: " + e.getMostSpecificCause().getMessage();
+                }
+                addError(result, row.line, row.request.getStudentCode(), message);
+            }
+        }
+    }
+
+    // Khóa so sánh trùng: khớp với collation không phân biệt hoa thường của cột
+    private static String key(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> keys(Set<String> values) {
+        Set<String> keys = new HashSet<>(values.size());
+        for (String value : values) {
+            keys.add(key(value));
+        }
+        return keys;
+    }
+
+    private String validate(CreateStudentRequest req) {
+        if (isBlank(req.getStudentCode())) {
+            return "studentCode is required";
+        }
+        if (isBlank(req.getEmail())) {
+            return "email is required";
+        }
+        if (isBlank(req.getMajorCode())) {
+            return "majorCode is required";
+        }
+        if (!majorCatalog.existsByCode(req.getMajorCode())) {
+            return "Major with code '" + req.getMajorCode() + "' not found";
+        }
+        return null;
+    }
+
+    private Student toStudent(CreateStudentRequest req) {
+        MajorDTO major = majorCatalog.findByCode(req.getMajorCode())
+                .orElseThrow(() -> new ApiException(ErrorCode.MAJOR_NOT_FOUND));
+        Student student = new Student();
+        student.setStudentCode(req.getStudentCode());
+        student.setName(req.getName());
+        student.setAge(req.getAge());
+        student.setEmail(req.getEmail());
+        student.setPhone(req.getPhone());
+        student.setMajor(new Major(major.getId(), major.getCode(), major.getName()));
+        return student;
+    }
+
+    private void addError(StudentImportResult result, long line, String studentCode, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < maxReportedErrors) {
+            result.getErrors().add(new StudentImportError(line, studentCode, message));
+        } else {
+            result.setErrorsTruncated(true);
+        }
+    }
+
+    private static Map<String, Integer> parseHeader(String header) {
+        // Bỏ BOM nếu file được lưu từ Excel
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+        List<String> names = parseCsvLine(header);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("studentcode", "email", "majorcode")) {
+            if (!columns.containsKey(required)) {
+                throw new ApiException(ErrorCode.BAD_REQUEST,
+                    "CSV header must contain columns " + String.join(",", CSV_COLUMNS));
+            }
+        }
+        return columns;
+    }
+
+    private static CreateStudentRequest toRequest(List<String> fields, Map<String, Integer> columns) {
+        CreateStudentRequest req = new CreateStudentRequest();
+        req.setStudentCode(field(fields, columns, "studentcode"));
+        req.setName(field(fields, columns, "name"));
+        req.setEmail(field(fields, columns, "email"));
+        req.setPhone(field(fields, columns, "phone"));
+        req.setMajorCode(field(fields, columns, "majorcode"));
+        String age = field(fields, columns, "age");
+        if (!isBlank(age)) {
+            try {
+                req.setAge(Integer.parseInt(age));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid age '" + age + "'");
+            }
+        }
+        return req;
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // Tách một dòng CSV, hỗ trợ trường trong ngoặc kép và "" để biểu diễn dấu ngoặc kép
+    private static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static final class ImportRow {
+        private final long line;
+        private final CreateStudentRequest request;
+
+        private ImportRow(long line, CreateStudentRequest request) {
+            this.line = line;
+            this.request = request;
+        }
+    }
+}
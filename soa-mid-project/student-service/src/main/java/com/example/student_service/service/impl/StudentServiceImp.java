@@ -3,55 +3,143 @@ package com.example.student_service.service.impl;
 import com.example.common_library.exception.ApiException;
 import com.example.common_library.exception.ErrorCode;
 import com.example.student_service.dto.CreateStudentRequest;
+import com.example.student_service.dto.MajorDTO;
 import com.example.student_service.dto.StudentDTO;
+import com.example.student_service.dto.StudentPage;
 import com.example.student_service.model.Major;
 import com.example.student_service.model.Student;
 import com.example.student_service.repository.MajorRepository;
+import com.example.student_service.repository.StudentExportRepository;
 import com.example.student_service.repository.StudentRepository;
+import com.example.student_service.repository.StudentSearchRepository;
+import com.example.student_service.service.MajorCatalogService;
 import com.example.student_service.service.StudentService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
 public class StudentServiceImp implements StudentService {
 
+     // Số mã tối đa trong một câu IN khi lấy sinh viên theo lô
+     private static final int BATCH_LOOKUP_CHUNK_SIZE = 500;
+
      private final StudentRepository studentRepository;
      private final MajorRepository majorRepository;
+     private final StudentExportRepository studentExportRepository;
+     private final StudentSearchRepository studentSearchRepository;
+     private final MajorCatalogService majorCatalog;
+     private final ObjectMapper objectMapper;
+
+     @Value("${student.page.default-size:50}")
+     private int defaultPageSize;
+
+     @Value("${student.page.max-size:500}")
+     private int maxPageSize;
 
-     public StudentServiceImp(StudentRepository studentRepository, MajorRepository majorRepository) {
+     public StudentServiceImp(StudentRepository studentRepository, MajorRepository majorRepository,
+                              StudentExportRepository studentExportRepository,
+                              StudentSearchRepository studentSearchRepository, MajorCatalogService majorCatalog,
+                              ObjectMapper objectMapper) {
          this.studentRepository = studentRepository;
          this.majorRepository = majorRepository;
+         this.studentExportRepository = studentExportRepository;
+         this.studentSearchRepository = studentSearchRepository;
+         this.majorCatalog = majorCatalog;
+         this.objectMapper = objectMapper;
      }
 
     @Override
     public List<StudentDTO> getAllStudents() {
-        List<Student> students = studentRepository.findAll();
-        return students.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return studentRepository.findAllAsDTO();
+    }
+
+    @Override
+    public StudentPage getStudentPage(Integer page, String cursor, Integer size) {
+        int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+
+        List<Student> rows;
+        boolean hasMore;
+        if (page != null) {
+            Page<Student> result = studentRepository.findPage(
+                    PageRequest.of(Math.max(0, page), pageSize, Sort.by("id")));
+            rows = result.getContent();
+            hasMore = result.hasNext();
+        } else {
+            int afterId = parseCursor(cursor);
+            // Lấy thêm 1 dòng để biết còn trang sau hay không
+            rows = studentRepository.findPageAfter(afterId, PageRequest.of(0, pageSize + 1));
+            hasMore = rows.size() > pageSize;
+            if (hasMore) {
+                rows = rows.subList(0, pageSize);
+            }
+        }
+
+        String nextCursor = hasMore && !rows.isEmpty() ? String.valueOf(rows.get(rows.size() - 1).getId()) : null;
+        List<StudentDTO> items = rows.stream().map(this::convertToDTO).collect(Collectors.toList());
+        return new StudentPage(items, nextCursor, hasMore);
+    }
+
+    @Override
+    public StudentPage searchStudents(String codePrefix, String name, String email, String cursor, Integer size) {
+        int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+        int afterId = parseCursor(cursor);
+        // Lấy thêm 1 dòng để biết còn trang sau hay không
+        List<StudentDTO> rows = studentSearchRepository.search(
+                trimToNull(codePrefix), trimToNull(name), trimToNull(email), afterId, pageSize + 1);
+
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+        String nextCursor = hasMore ? String.valueOf(rows.get(rows.size() - 1).getId()) : null;
+        return new StudentPage(rows, nextCursor, hasMore);
+    }
+
+    @Override
+    public void exportStudents(OutputStream out) {
+        studentExportRepository.streamAll(student -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(student));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     @Override
     public StudentDTO findStudentById(int id) {
-        Optional<Student> studentOptional = studentRepository.findById(id);
-        Student student = studentOptional.orElseThrow(() -> new ApiException(ErrorCode.STUDENT_NOT_FOUND));
-        return convertToDTO(student);
+        return studentRepository.findDTOById(id)
+                .orElseThrow(() -> new ApiException(ErrorCode.STUDENT_NOT_FOUND));
     }
 
     @Override
     public List<StudentDTO> findStudentsByMajorCode(String majorCode) {
         // Kiểm tra major có tồn tại không
-        if (!majorRepository.existsByCode(majorCode)) {
+        if (!majorCatalog.existsByCode(majorCode)) {
             throw new ApiException(ErrorCode.MAJOR_NOT_FOUND, "Major with code '" + majorCode + "' not found");
         }
         
-        List<Student> students = studentRepository.findByMajorCode(majorCode);
-        return students.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return studentRepository.findDTOsByMajorCode(majorCode);
     }
     
     @Override
@@ -60,8 +148,10 @@ public class StudentServiceImp implements StudentService {
             throw new ApiException(ErrorCode.STUDENT_ALREADY_EXISTS);
         }
         
-        Major major = majorRepository.findByCode(request.getMajorCode())
+        MajorDTO majorDTO = majorCatalog.findByCode(request.getMajorCode())
                 .orElseThrow(() -> new ApiException(ErrorCode.MAJOR_NOT_FOUND));
+        // Chỉ cần tham chiếu để gán khóa ngoại, không select lại bảng major
+        Major major = majorRepository.getReferenceById(majorDTO.getId());
         
         Student student = new Student();
         student.setStudentCode(request.getStudentCode());
@@ -72,7 +162,7 @@ public class StudentServiceImp implements StudentService {
         student.setMajor(major);
         
         Student savedStudent = studentRepository.save(student);
-        return convertToDTO(savedStudent);
+        return convertToDTO(savedStudent, majorDTO);
     }
 
     @Override
@@ -80,8 +170,10 @@ public class StudentServiceImp implements StudentService {
         Student student = studentRepository.findById(id)
                 .orElseThrow(() -> new ApiException(ErrorCode.STUDENT_NOT_FOUND));
         
-        Major major = majorRepository.findByCode(request.getMajorCode())
+        MajorDTO majorDTO = majorCatalog.findByCode(request.getMajorCode())
                 .orElseThrow(() -> new ApiException(ErrorCode.MAJOR_NOT_FOUND));
+        // Chỉ cần tham chiếu để gán khóa ngoại, không select lại bảng major
+        Major major = majorRepository.getReferenceById(majorDTO.getId());
         
         student.setName(request.getName());
         student.setAge(request.getAge());
@@ -90,7 +182,7 @@ public class StudentServiceImp implements StudentService {
         student.setMajor(major);
         
         Student updatedStudent = studentRepository.save(student);
-        return convertToDTO(updatedStudent);
+        return convertToDTO(updatedStudent, majorDTO);
     }
 
     @Override
@@ -103,9 +195,47 @@ public class StudentServiceImp implements StudentService {
 
     @Override
     public StudentDTO getStudentByCode(String studentCode) {
-        Student student = studentRepository.findByStudentCode(studentCode)
+        return studentRepository.findDTOByStudentCode(studentCode)
                 .orElseThrow(() -> new ApiException(ErrorCode.STUDENT_NOT_FOUND));
-        return convertToDTO(student);
+    }
+
+    @Override
+    public List<StudentDTO> getStudentsByCodes(Collection<String> studentCodes) {
+        if (studentCodes == null || studentCodes.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> codes = studentCodes.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+
+        List<StudentDTO> result = new ArrayList<>(codes.size());
+        for (int from = 0; from < codes.size(); from += BATCH_LOOKUP_CHUNK_SIZE) {
+            List<String> chunk = codes.subList(from, Math.min(from + BATCH_LOOKUP_CHUNK_SIZE, codes.size()));
+            result.addAll(studentRepository.findDTOsByStudentCodes(chunk));
+        }
+        return result;
+    }
+
+    private static int parseCursor(String cursor) {
+        try {
+            return cursor == null || cursor.isEmpty() ? 0 : Integer.parseInt(cursor);
+        } catch (NumberFormatException e) {
+            throw new ApiException(ErrorCode.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private StudentDTO convertToDTO(Student student, MajorDTO major) {
+        return new StudentDTO(student.getId(), student.getStudentCode(), student.getName(), student.getAge(),
+            student.getEmail(), student.getPhone(), major.getCode(), major.getName());
     }
 
     private StudentDTO convertToDTO(Student student) {
@@ -1,5 +1,7 @@
+DROP TABLE IF EXISTS major_catalog_version;
 DROP TABLE IF EXISTS student;
 DROP TABLE IF EXISTS major;
+DROP TABLE IF EXISTS ft_stopwords;
 
 CREATE TABLE major (
                        id INT PRIMARY KEY AUTO_INCREMENT,
@@ -7,6 +9,14 @@ CREATE TABLE major (
                        name VARCHAR(100) NOT NULL
 );
 
+-- Danh sách stopword rỗng cho FULLTEXT: danh sách mặc định của InnoDB (a, an, i, to...) làm parser ngram
+-- bỏ các cụm 2 ký tự trùng stopword như "an", "ha", "ai", nên MATCH loại nhầm tên hợp lệ.
+-- Biến session này được đọc lúc tạo index, script chạy trên một connection nên không cần quyền SET GLOBAL.
+CREATE TABLE ft_stopwords (
+                         value VARCHAR(30)
+) ENGINE = InnoDB;
+SET SESSION innodb_ft_user_stopword_table = CONCAT(DATABASE(), '/ft_stopwords');
+
 CREATE TABLE student (
                          id INT PRIMARY KEY AUTO_INCREMENT,
                          student_code VARCHAR(20) NOT NULL UNIQUE,
@@ -15,5 +25,13 @@ CREATE TABLE student (
                          major_id INT NOT NULL,
                          email VARCHAR(100) NOT NULL UNIQUE,
                          phone VARCHAR(20),
-                         CONSTRAINT fk_major FOREIGN KEY (major_id) REFERENCES major(id)
+                         CONSTRAINT fk_major FOREIGN KEY (major_id) REFERENCES major(id),
+                         -- Tìm theo tên (chứa chuỗi): parser ngram tách theo từng cụm 2 ký tự nên khớp được cả một phần tên
+                         FULLTEXT INDEX ft_student_name (name) WITH PARSER ngram
+);
+
+-- Version của danh mục ngành, tăng mỗi khi thêm/sửa/xóa ngành để các instance nạp lại cache
+CREATE TABLE major_catalog_version (
+                         id INT PRIMARY KEY,
+                         version BIGINT NOT NULL
 );
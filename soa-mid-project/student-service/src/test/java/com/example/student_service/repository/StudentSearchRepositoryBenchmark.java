@@ -0,0 +1,171 @@
+package com.example.student_service.repository;
+
+import com.example.student_service.dto.StudentDTO;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Đo thời gian các câu tìm kiếm của StudentSearchRepository trên MySQL với 1 triệu sinh viên.
+ * Cần MySQL 8 (FULLTEXT ngram), H2 không có MATCH ... AGAINST nên không chạy được trong mvn test thường.
+ * Lớp này XÓA và tạo lại bảng bằng schema.sql, chỉ chạy trên database riêng cho benchmark:
+ *
+ *   docker compose up -d user-db
+ *   mysql -h127.0.0.1 -P3307 -uroot -proot -e "CREATE DATABASE student_bench"
+ *   mvn -B test -pl student-service -Dtest=StudentSearchRepositoryBenchmark \
+ *     -Dbenchmark.mysql.url="jdbc:mysql://localhost:3307/student_bench?useSSL=false&allowPublicKeyRetrieval=true&rewriteBatchedStatements=true"
+ *
+ * Dữ liệu chỉ sinh lại khi số dòng khác benchmark.students (mặc định 1.000.000).
+ * Câu theo mã, email và họ tên đầy đủ phải có p95 dưới 50 ms; câu theo tên ngắn/phổ biến chỉ in ra để theo dõi.
+ */
+@EnabledIfSystemProperty(named = "benchmark.mysql.url", matches = ".+")
+class StudentSearchRepositoryBenchmark {
+
+    private static final int STUDENTS = Integer.getInteger("benchmark.students", 1_000_000);
+    private static final int INSERT_BATCH_SIZE = 5000;
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int ITERATIONS = 200;
+    private static final int PAGE_SIZE = 20;
+    private static final long TARGET_P95_MS = 50;
+
+    private static final String[] FAMILY_NAMES = {
+        "Nguyễn", "Trần", "Lê", "Phạm", "Hoàng", "Phan", "Vũ", "Đặng", "Bùi", "Đỗ"
+    };
+    private static final String[] MIDDLE_NAMES = {
+        "Văn", "Thị", "Minh", "Đức", "Ngọc", "Quang", "Thanh", "Hữu"
+    };
+    private static final String[] GIVEN_NAMES = {
+        "An", "Bình", "Cường", "Dũng", "Giang", "Hà", "Hải", "Hạnh", "Hoa", "Hùng",
+        "Khánh", "Lan", "Linh", "Long", "Mai", "Nam", "Nga", "Phúc", "Phương", "Quân",
+        "Sơn", "Tâm", "Thảo", "Trang", "Trung", "Tuấn", "Uyên", "Việt", "Yến", "Hiếu"
+    };
+
+    private static SingleConnectionDataSource dataSource;
+    private static StudentSearchRepository repository;
+
+    @BeforeAll
+    static void loadData() throws Exception {
+        dataSource = new SingleConnectionDataSource(
+            System.getProperty("benchmark.mysql.url"),
+            System.getProperty("benchmark.mysql.username", "root"),
+            System.getProperty("benchmark.mysql.password", "root"),
+            true);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        repository = new StudentSearchRepository(jdbcTemplate);
+
+        Integer existing = null;
+        try {
+            existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM student", Integer.class);
+        } catch (Exception e) {
+            // Chưa có bảng
+        }
+        if (existing != null && existing == STUDENTS) {
+            System.out.println("Reusing " + existing + " students");
+            return;
+        }
+
+        long start = System.nanoTime();
+        // Cùng connection với lúc insert: biến session stopword phải có hiệu lực khi tạo index FULLTEXT
+        Connection connection = dataSource.getConnection();
+        ScriptUtils.executeSqlScript(connection, new ClassPathResource("schema.sql"));
+        jdbcTemplate.update("INSERT INTO major (code, name) VALUES ('CNTT', 'Công nghệ thông tin'), "
+            + "('QTKD', 'Quản trị kinh doanh'), ('KTE', 'Kinh tế học'), ('NNA', 'Ngôn ngữ Anh'), ('LUAT', 'Luật')");
+
+        connection.setAutoCommit(false);
+        Random random = new Random(42);
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        for (int i = 1; i <= STUDENTS; i++) {
+            batch.add(new Object[] {
+                studentCode(i), studentName(i), 18 + random.nextInt(8), 1 + random.nextInt(5),
+                "sv" + i + "@student.edu.vn", String.format("09%08d", random.nextInt(100_000_000))
+            });
+            if (batch.size() == INSERT_BATCH_SIZE || i == STUDENTS) {
+                jdbcTemplate.batchUpdate("INSERT INTO student (student_code, name, age, major_id, email, phone) "
+                    + "VALUES (?, ?, ?, ?, ?, ?)", batch);
+                connection.commit();
+                batch.clear();
+            }
+        }
+        connection.setAutoCommit(true);
+        jdbcTemplate.execute("ANALYZE TABLE student");
+        System.out.printf("Loaded %,d students in %.1f s%n", STUDENTS, (System.nanoTime() - start) / 1e9);
+    }
+
+    @AfterAll
+    static void close() {
+        if (dataSource != null) {
+            dataSource.destroy();
+        }
+    }
+
+    @Test
+    void searchLatency() {
+        Random random = new Random(7);
+        System.out.printf("%-40s %8s %8s %8s %8s%n", "query", "rows", "p50 ms", "p95 ms", "max ms");
+        List<String> failed = new ArrayList<>();
+
+        // Điều kiện chọn lọc: phải đạt mục tiêu 50 ms
+        check(failed, "code prefix (10 matches)", true,
+            () -> repository.search(studentCode(1 + random.nextInt(STUDENTS / 10)).substring(0, 8), null, null, 0, PAGE_SIZE));
+        check(failed, "exact email", true,
+            () -> repository.search(null, null, "sv" + (1 + random.nextInt(STUDENTS)) + "@student.edu.vn", 0, PAGE_SIZE));
+        check(failed, "full name", true,
+            () -> repository.search(null, studentName(1 + random.nextInt(STUDENTS)), null, 0, PAGE_SIZE));
+        check(failed, "code prefix + keyset page near the end", true,
+            () -> repository.search("SV", null, null, STUDENTS - 1000 - random.nextInt(1000), PAGE_SIZE));
+
+        // Tên ngắn/phổ biến: MATCH trả về hàng chục nghìn dòng rồi sắp theo id, chỉ in ra
+        check(failed, "given name (~3% of rows)", false,
+            () -> repository.search(null, GIVEN_NAMES[random.nextInt(GIVEN_NAMES.length)], null, 0, PAGE_SIZE));
+        check(failed, "family name (~10% of rows)", false,
+            () -> repository.search(null, FAMILY_NAMES[random.nextInt(FAMILY_NAMES.length)], null, 0, PAGE_SIZE));
+
+        assertThat(failed).as("p95 over %d ms", TARGET_P95_MS).isEmpty();
+    }
+
+    private void check(List<String> failed, String label, boolean enforce, Supplier<List<StudentDTO>> query) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            query.get();
+        }
+        long[] nanos = new long[ITERATIONS];
+        long rows = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long begin = System.nanoTime();
+            rows += query.get().size();
+            nanos[i] = System.nanoTime() - begin;
+        }
+        Arrays.sort(nanos);
+        double p95 = nanos[(int) Math.ceil(0.95 * ITERATIONS) - 1] / 1e6;
+        System.out.printf("%-40s %8.1f %8.2f %8.2f %8.2f%s%n", label, (double) rows / ITERATIONS,
+            nanos[ITERATIONS / 2] / 1e6, p95, nanos[ITERATIONS - 1] / 1e6, enforce ? "" : "  (not enforced)");
+        assertThat(rows).as(label).isPositive();
+        if (enforce && p95 > TARGET_P95_MS) {
+            failed.add(label + ": " + Math.round(p95) + " ms");
+        }
+    }
+
+    private static String studentCode(int i) {
+        return String.format("SV%07d", i);
+    }
+
+    // Tên xác định theo i để tra lại được họ tên đầy đủ của một sinh viên bất kỳ
+    private static String studentName(int i) {
+        return FAMILY_NAMES[i % FAMILY_NAMES.length] + " "
+            + MIDDLE_NAMES[(i / FAMILY_NAMES.length) % MIDDLE_NAMES.length] + " "
+            + GIVEN_NAMES[(i / (FAMILY_NAMES.length * MIDDLE_NAMES.length)) % GIVEN_NAMES.length];
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.student_service.service.impl;
+
+import com.example.student_service.dto.StudentDTO;
+import com.example.student_service.model.Major;
+import com.example.student_service.model.Student;
+import com.example.student_service.repository.StudentExportRepository;
+import com.example.student_service.repository.StudentSearchRepository;
+import com.example.student_service.service.MajorCatalogService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+// Danh sách sinh viên phải đọc bằng một câu SQL, không tăng theo số sinh viên (không N+1 khi lấy major)
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:student_query_count;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.sql.init.mode=never",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({StudentServiceImp.class, StudentExportRepository.class, StudentSearchRepository.class,
+         StudentServiceImpQueryCountTest.JacksonConfig.class})
+class StudentServiceImpQueryCountTest {
+
+    @TestConfiguration
+    static class JacksonConfig {
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+    }
+
+    @MockitoBean
+    private MajorCatalogService majorCatalog;
+
+    @Autowired
+    private StudentServiceImp studentService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Major it;
+    private Major business;
+    private int nextStudent;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        it = entityManager.persist(new Major(0, "CNTT", "Công nghệ thông tin"));
+        business = entityManager.persist(new Major(0, "QTKD", "Quản trị kinh doanh"));
+        when(majorCatalog.existsByCode("CNTT")).thenReturn(true);
+    }
+
+    @Test
+    void getAllStudentsUsesOneStatementRegardlessOfStudentCount() {
+        addStudents(it, 2);
+        addStudents(business, 1);
+        assertThat(countStatements(() -> studentService.getAllStudents())).isEqualTo(1);
+
+        addStudents(it, 20);
+        addStudents(business, 20);
+        List<StudentDTO> all = studentService.getAllStudents();
+        assertThat(all).hasSize(43);
+        assertThat(all).allSatisfy(student -> assertThat(student.getMajorName()).isNotNull());
+        assertThat(countStatements(() -> studentService.getAllStudents())).isEqualTo(1);
+    }
+
+    @Test
+    void findStudentsByMajorCodeUsesOneStatementRegardlessOfStudentCount() {
+        addStudents(it, 2);
+        addStudents(business, 1);
+        assertThat(countStatements(() -> studentService.findStudentsByMajorCode("CNTT"))).isEqualTo(1);
+
+        addStudents(it, 30);
+        addStudents(business, 10);
+        List<StudentDTO> students = studentService.findStudentsByMajorCode("CNTT");
+        assertThat(students).hasSize(32);
+        assertThat(students).allSatisfy(student -> assertThat(student.getMajorCode()).isEqualTo("CNTT"));
+        assertThat(countStatements(() -> studentService.findStudentsByMajorCode("CNTT"))).isEqualTo(1);
+    }
+
+    private void addStudents(Major major, int count) {
+        for (int i = 0; i < count; i++) {
+            int n = ++nextStudent;
+            entityManager.persist(new Student(0, "SV" + n, "Sinh viên " + n, 20, major, "sv" + n + "@example.com", null));
+        }
+        // Ghi xuống DB và xóa persistence context để câu đếm chỉ gồm truy vấn đọc
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private long countStatements(Runnable query) {
+        statistics.clear();
+        query.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -1,10 +1,13 @@
 package com.example.tuition_service.client;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 
 import com.example.common_library.dto.StudentDTO;
 
@@ -19,4 +22,8 @@ public interface StudentServiceClient {
 
     @GetMapping("/api/students/code/{studentCode}")
     StudentDTO getStudentByCode(@PathVariable("studentCode") String studentCode);
+
+    // Lấy nhiều sinh viên theo mã trong một lần gọi, mã không tồn tại sẽ không có trong kết quả
+    @PostMapping("/api/students/batch")
+    List<StudentDTO> getStudentsByCodes(@RequestBody Collection<String> studentCodes);
 }
@@ -0,0 +1,32 @@
+package com.example.tuition_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    @Value("${tuition.inquiry.pool-size:2}")
+    private int inquiryPoolSize;
+
+    @Value("${tuition.inquiry.queue-capacity:20}")
+    private int inquiryQueueCapacity;
+
+    // Pool gửi OTP tra cứu hàng loạt theo ngành, tách khỏi thread request.
+    // Khi pool và hàng đợi đầy thì từ chối ngay (AbortPolicy), không chạy trên thread request.
+    @Bean(name = "inquiryOtpExecutor")
+    public ThreadPoolTaskExecutor inquiryOtpExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(inquiryPoolSize);
+        executor.setMaxPoolSize(inquiryPoolSize);
+        executor.setQueueCapacity(inquiryQueueCapacity);
+        executor.setThreadNamePrefix("inquiry-otp-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
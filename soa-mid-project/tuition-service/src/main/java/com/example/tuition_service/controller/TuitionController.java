@@ -1,10 +1,12 @@
 package com.example.tuition_service.controller;
 
 import java.util.List;
+import java.util.Set;
 
 import com.example.tuition_service.dto.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,8 +18,10 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.example.tuition_service.model.Tuition;
+import com.example.tuition_service.service.TuitionMajorSyncService;
 import com.example.tuition_service.service.TuitionService;
 
 @RestController
@@ -25,10 +29,12 @@ import com.example.tuition_service.service.TuitionService;
 public class TuitionController {
     
     private final TuitionService tuitionService;
+    private final TuitionMajorSyncService tuitionMajorSyncService;
     
     @Autowired
-    public TuitionController(TuitionService tuitionService) {
+    public TuitionController(TuitionService tuitionService, TuitionMajorSyncService tuitionMajorSyncService) {
         this.tuitionService = tuitionService;
+        this.tuitionMajorSyncService = tuitionMajorSyncService;
     }
 
 
@@ -70,6 +76,13 @@ public class TuitionController {
         }
     }
 
+    // Lấy nhiều học phí theo danh sách mã trong một lần gọi
+    @PostMapping("/batch")
+    public ResponseEntity<List<TuitionDTO>> getTuitionsByCodes(@RequestBody Set<String> tuitionCodes) {
+        List<TuitionDTO> tuitions = tuitionService.getTuitionsByCodes(tuitionCodes);
+        return ResponseEntity.ok(tuitions);
+    }
+
     @DeleteMapping("/{tuitionId}")
     public ResponseEntity<Void> deleteTuition(@PathVariable String tuitionId) {
         tuitionService.deleteTuition(tuitionId);
@@ -88,6 +101,24 @@ public class TuitionController {
         return ResponseEntity.ok(tuitionList);
     }
 
+    // Phân trang: truyền page để dùng offset, hoặc cursor (nextCursor của trang trước) để dùng keyset
+    @GetMapping("/page")
+    public ResponseEntity<TuitionPage> getTuitionPage(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(tuitionService.getTuitionPage(page, cursor, size));
+    }
+
+    // Xuất toàn bộ học phí dạng NDJSON (mỗi dòng một JSON), ghi dần ra response
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportAllTuition() {
+        StreamingResponseBody body = out -> tuitionService.exportAllTuition(out);
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType("application/x-ndjson"))
+            .body(body);
+    }
+
     @PostMapping("/inquiry/request")
     public ResponseEntity<ApiResponse> requestTuitionInquiry(@RequestBody TuitionInquiryRequest request) {
         tuitionService.requestTuitionInquiry(request.getStudentCode());
@@ -95,6 +126,13 @@ public class TuitionController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/inquiry/request-by-major/{majorCode}")
+    public ResponseEntity<ApiResponse> requestTuitionInquiryByMajor(@PathVariable("majorCode") String majorCode) {
+        int queued = tuitionService.requestTuitionInquiryByMajor(majorCode);
+        ApiResponse response = new ApiResponse("Đang gửi OTP đến " + queued + " sinh viên ngành " + majorCode + ".");
+        return ResponseEntity.accepted().body(response);
+    }
+
     @PostMapping("/inquiry/verify")
     public ResponseEntity<StudentTuitionResponse> verifyOtpAndGetTuitions(@RequestBody OtpVerificationRequest request) {
         StudentTuitionResponse response = tuitionService.verifyOtpAndGetTuitions(
@@ -110,4 +148,28 @@ public class TuitionController {
         List<TuitionDTO> result = tuitionService.searchTuitions(code, semester);
         return ResponseEntity.ok(result);
     }
-}
\ No newline at end of file
+
+    @GetMapping("/search/page")
+    public ResponseEntity<TuitionPage> searchTuitionsPage(
+            @RequestParam(required = false) String code,
+            @RequestParam(required = false) String semester,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(tuitionService.searchTuitionsPage(code, semester, cursor, size));
+    }
+
+    // Điền major_code cho học phí cũ; gọi lại với afterId = lastTuitionId để chạy tiếp
+    @PostMapping("/major-code/backfill")
+    public ResponseEntity<MajorBackfillResult> backfillMajorCodes(
+            @RequestParam(required = false) String afterId,
+            @RequestParam(required = false) Integer maxRows) {
+        return ResponseEntity.ok(tuitionMajorSyncService.backfillMajorCodes(afterId, maxRows));
+    }
+
+    // Gọi sau khi sinh viên đổi ngành
+    @PostMapping("/major-code/resync/{studentCode}")
+    public ResponseEntity<ApiResponse> resyncMajorCode(@PathVariable("studentCode") String studentCode) {
+        int updated = tuitionMajorSyncService.resyncStudent(studentCode);
+        return ResponseEntity.ok(new ApiResponse("Đã cập nhật mã ngành cho " + updated + " học phí của sinh viên " + studentCode + "."));
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.tuition_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MajorBackfillResult {
+    private int scanned;      // Số học phí chưa có major_code đã duyệt
+    private int updated;      // Số học phí đã điền major_code
+    private int unresolved;   // Số học phí không tìm được sinh viên, vẫn để trống
+    private String lastTuitionId;   // Truyền vào afterId để chạy tiếp từ vị trí này
+}
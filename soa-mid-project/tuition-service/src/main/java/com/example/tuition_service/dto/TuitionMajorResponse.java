@@ -13,4 +13,7 @@ public class TuitionMajorResponse {
     private String semester;
     private String majorCode;
     private List<TuitionResponse> tuitions;
+    // Số học phí tạo mới và số sinh viên bỏ qua vì đã có học phí trong học kỳ
+    private int createdCount;
+    private int skippedCount;
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.example.tuition_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TuitionPage {
+    private List<TuitionDTO> items;
+    private String nextCursor;   // Truyền vào tham số cursor để lấy trang tiếp theo, null nếu đã hết
+    private boolean hasMore;
+}
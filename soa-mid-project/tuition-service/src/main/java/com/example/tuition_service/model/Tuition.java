@@ -28,6 +28,10 @@ public class Tuition {
     
     @Column(nullable = false)
     private String semester;
+
+    // Lưu lại mã ngành lúc tạo học phí để tìm theo ngành không cần gọi student-service
+    @Column(name = "major_code")
+    private String majorCode;
     
     @Column(name = "due_date")
     private LocalDate dueDate;
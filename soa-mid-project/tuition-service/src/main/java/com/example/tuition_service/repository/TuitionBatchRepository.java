@@ -0,0 +1,91 @@
+package com.example.tuition_service.repository;
+
+import com.example.tuition_service.model.Tuition;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Ghi học phí theo lô bằng JDBC batch (cần rewriteBatchedStatements=true trong URL MySQL).
+// insertAll phải được gọi trong transaction để cả lô cùng commit hoặc cùng rollback.
+@Repository
+public class TuitionBatchRepository {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String INSERT_TUITION =
+        "INSERT INTO tuitions (tuition_id, student_code, amount, semester, major_code, due_date, status, created_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String FILL_MAJOR_CODE =
+        "UPDATE tuitions SET major_code = ? WHERE student_code = ? AND major_code IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TuitionBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Set<String> findTuitionIdsBySemester(String semester) {
+        return new HashSet<>(jdbcTemplate.queryForList(
+            "SELECT tuition_id FROM tuitions WHERE semester = ?", String.class, semester));
+    }
+
+    public void insertAll(List<Tuition> tuitions) {
+        jdbcTemplate.batchUpdate(INSERT_TUITION, tuitions, BATCH_SIZE, (ps, t) -> {
+            ps.setString(1, t.getTuitionId());
+            ps.setString(2, t.getStudentCode());
+            ps.setBigDecimal(3, t.getAmount());
+            ps.setString(4, t.getSemester());
+            ps.setString(5, t.getMajorCode());
+            ps.setDate(6, t.getDueDate() != null ? Date.valueOf(t.getDueDate()) : null);
+            ps.setString(7, t.getStatus());
+            ps.setTimestamp(8, Timestamp.valueOf(t.getCreatedAt()));
+        });
+    }
+
+    // Trang các học phí chưa có major_code, keyset theo tuition_id; trả về tuition_id -> student_code
+    public Map<String, String> findStudentCodesWithoutMajor(String afterId, int limit) {
+        Map<String, String> rows = new LinkedHashMap<>();
+        jdbcTemplate.query(
+            "SELECT tuition_id, student_code FROM tuitions WHERE major_code IS NULL AND tuition_id > ? " +
+            "ORDER BY tuition_id LIMIT ?",
+            rs -> { rows.put(rs.getString("tuition_id"), rs.getString("student_code")); },
+            afterId, limit);
+        return rows;
+    }
+
+    // studentCode -> majorCode, chỉ điền các dòng còn trống
+    public int fillMajorCodes(Map<String, String> majorByStudent) {
+        List<Map.Entry<String, String>> entries = new ArrayList<>(majorByStudent.entrySet());
+        int[][] counts = jdbcTemplate.batchUpdate(FILL_MAJOR_CODE, entries, BATCH_SIZE, (ps, e) -> {
+            ps.setString(1, e.getValue());
+            ps.setString(2, e.getKey());
+        });
+        return Arrays.stream(counts).flatMapToInt(Arrays::stream).map(c -> Math.max(c, 0)).sum();
+    }
+
+    // Ghi đè mã ngành của mọi học phí của sinh viên (khi sinh viên đổi ngành)
+    public int updateMajorCode(String studentCode, String majorCode) {
+        return jdbcTemplate.update(
+            "UPDATE tuitions SET major_code = ? WHERE student_code = ?", majorCode, studentCode);
+    }
+
+    // Còn học phí chưa có major_code trong học kỳ (semester = null: mọi học kỳ); dùng index (major_code, semester)
+    public boolean existsWithoutMajor(String semester) {
+        List<Integer> rows = semester != null
+            ? jdbcTemplate.queryForList(
+                "SELECT 1 FROM tuitions WHERE major_code IS NULL AND semester = ? LIMIT 1", Integer.class, semester)
+            : jdbcTemplate.queryForList(
+                "SELECT 1 FROM tuitions WHERE major_code IS NULL LIMIT 1", Integer.class);
+        return !rows.isEmpty();
+    }
+}
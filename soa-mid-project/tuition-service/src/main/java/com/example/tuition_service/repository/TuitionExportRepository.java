@@ -0,0 +1,37 @@
+package com.example.tuition_service.repository;
+
+import com.example.tuition_service.model.Tuition;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.function.Consumer;
+
+// Đọc toàn bộ bảng học phí bằng con trỏ JDBC chỉ tiến (MySQL streaming result set),
+// mỗi dòng được đưa thẳng cho consumer nên bộ nhớ không tăng theo số dòng.
+@Repository
+public class TuitionExportRepository {
+
+    private static final String SELECT_ALL =
+        "SELECT tuition_id, student_code, semester, amount, status FROM tuitions ORDER BY tuition_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TuitionExportRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        // Integer.MIN_VALUE: MySQL Connector/J trả từng dòng thay vì nạp toàn bộ kết quả
+        this.jdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    public void streamAll(Consumer<Tuition> consumer) {
+        jdbcTemplate.query(SELECT_ALL, rs -> {
+            Tuition t = new Tuition();
+            t.setTuitionId(rs.getString("tuition_id"));
+            t.setStudentCode(rs.getString("student_code"));
+            t.setSemester(rs.getString("semester"));
+            t.setAmount(rs.getBigDecimal("amount"));
+            t.setStatus(rs.getString("status"));
+            consumer.accept(t);
+        });
+    }
+}
@@ -1,12 +1,58 @@
 package com.example.tuition_service.repository;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.example.tuition_service.model.Tuition;
 
 public interface TuitionRepository extends JpaRepository<Tuition, String> {
     List<Tuition> findByStudentCode(String studentCode);
     List<Tuition> findBySemester(String semester);
-}
\ No newline at end of file
+
+    // Học phí chưa có major_code, lọc theo danh sách mã sinh viên của ngành (truyền theo từng nhóm)
+    List<Tuition> findByMajorCodeIsNullAndStudentCodeIn(Collection<String> studentCodes);
+    List<Tuition> findBySemesterAndMajorCodeIsNullAndStudentCodeIn(String semester, Collection<String> studentCodes);
+
+    // Phân trang keyset theo tuition_id: afterId = "" cho trang đầu
+    @Query("SELECT t FROM Tuition t WHERE t.tuitionId > :afterId ORDER BY t.tuitionId")
+    List<Tuition> findPageAfter(@Param("afterId") String afterId, Pageable pageable);
+
+    @Query("SELECT t FROM Tuition t WHERE t.semester = :semester AND t.tuitionId > :afterId ORDER BY t.tuitionId")
+    List<Tuition> findPageBySemesterAfter(@Param("semester") String semester,
+                                          @Param("afterId") String afterId,
+                                          Pageable pageable);
+
+    @Query("SELECT t FROM Tuition t WHERE t.majorCode IS NULL AND t.studentCode IN :studentCodes " +
+           "AND t.tuitionId > :afterId ORDER BY t.tuitionId")
+    List<Tuition> findPageWithoutMajorByStudentCodesAfter(@Param("studentCodes") Collection<String> studentCodes,
+                                              @Param("afterId") String afterId,
+                                              Pageable pageable);
+
+    @Query("SELECT t FROM Tuition t WHERE t.semester = :semester AND t.majorCode IS NULL " +
+           "AND t.studentCode IN :studentCodes AND t.tuitionId > :afterId ORDER BY t.tuitionId")
+    List<Tuition> findPageWithoutMajorBySemesterAndStudentCodesAfter(@Param("semester") String semester,
+                                                         @Param("studentCodes") Collection<String> studentCodes,
+                                                         @Param("afterId") String afterId,
+                                                         Pageable pageable);
+
+    // Tìm theo major_code đã lưu, dùng index (major_code, semester)
+    List<Tuition> findByMajorCode(String majorCode);
+    List<Tuition> findByMajorCodeAndSemester(String majorCode, String semester);
+
+    @Query("SELECT t FROM Tuition t WHERE t.majorCode = :majorCode AND t.tuitionId > :afterId ORDER BY t.tuitionId")
+    List<Tuition> findPageByMajorCodeAfter(@Param("majorCode") String majorCode,
+                                           @Param("afterId") String afterId,
+                                           Pageable pageable);
+
+    @Query("SELECT t FROM Tuition t WHERE t.majorCode = :majorCode AND t.semester = :semester " +
+           "AND t.tuitionId > :afterId ORDER BY t.tuitionId")
+    List<Tuition> findPageByMajorCodeAndSemesterAfter(@Param("majorCode") String majorCode,
+                                                      @Param("semester") String semester,
+                                                      @Param("afterId") String afterId,
+                                                      Pageable pageable);
+}
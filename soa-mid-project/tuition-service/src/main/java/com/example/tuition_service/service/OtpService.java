@@ -1,7 +1,11 @@
 package com.example.tuition_service.service;
 
+import java.util.Collection;
+import java.util.Map;
+
 public interface OtpService {
     String generateOtp(String studentCode);
+    Map<String, String> generateOtps(Collection<String> studentCodes);
     boolean verifyOtp(String studentCode, String otpCode);
     void removeOtp(String studentCode);
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.example.tuition_service.service;
+
+import com.example.tuition_service.dto.MajorBackfillResult;
+
+public interface TuitionMajorSyncService {
+
+    // Điền major_code cho các học phí cũ, mỗi trang commit riêng nên có thể dừng và chạy lại
+    MajorBackfillResult backfillMajorCodes(String afterId, Integer maxRows);
+
+    // Cập nhật lại major_code cho mọi học phí của sinh viên theo ngành hiện tại bên student-service
+    int resyncStudent(String studentCode);
+}
@@ -7,7 +7,10 @@ import com.example.tuition_service.dto.StudentTuitionResponse;
 import com.example.tuition_service.dto.TuitionDTO;
 import com.example.tuition_service.dto.TuitionMajorRequest;
 import com.example.tuition_service.dto.TuitionMajorResponse;
+import com.example.tuition_service.dto.TuitionPage;
 
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.List;
 
 @Service
@@ -20,6 +23,8 @@ public interface TuitionService {
     TuitionMajorResponse createTuitionByMajor(TuitionMajorRequest request);
 
     TuitionDTO getTuitionByCode(String tuitionCode);
+
+    List<TuitionDTO> getTuitionsByCodes(Collection<String> tuitionCodes);
     
     StudentTuitionResponse getStudentTuitions(int studentId);
 
@@ -30,8 +35,21 @@ public interface TuitionService {
 
     List<TuitionDTO> getAllTuition();
 
+    // page != null: phân trang offset; ngược lại phân trang keyset theo cursor
+    TuitionPage getTuitionPage(Integer page, String cursor, Integer size);
+
+    // Ghi toàn bộ học phí ra dạng NDJSON, đọc bằng con trỏ JDBC nên bộ nhớ không phụ thuộc số dòng
+    void exportAllTuition(OutputStream out);
+
     void requestTuitionInquiry(String studentCode);
+
+    // Xếp hàng gửi lại OTP tra cứu cho toàn bộ sinh viên của một ngành (gửi bất đồng bộ), trả về số sinh viên
+    int requestTuitionInquiryByMajor(String majorCode);
+
     StudentTuitionResponse verifyOtpAndGetTuitions(String studentCode, String otpCode);
 
     List<TuitionDTO> searchTuitions(String majorCode, String semester);
+
+    // Như searchTuitions nhưng phân trang keyset theo mã học phí
+    TuitionPage searchTuitionsPage(String majorCode, String semester, String cursor, Integer size);
 }
@@ -1,52 +1,71 @@
 package com.example.tuition_service.service.impl;
 
+import com.example.common_library.otp.OtpStore;
+import com.example.common_library.otp.OtpVerificationResult;
+import com.example.common_library.otp.RedisOtpStore;
 import com.example.tuition_service.service.OtpService;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.security.SecureRandom;
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Service
 public class OtpServiceImpl implements OtpService {
     
     private static final String OTP_PREFIX = "tuition:otp:inquiry:";
+    private static final String OTP_ATTEMPT_PREFIX = "tuition:otp:inquiry:attempt:";
     private static final int OTP_EXPIRE_MINUTES = 1;
+    // Sai quá số lần này thì OTP bị hủy, phải yêu cầu mã mới
+    private static final int MAX_OTP_ATTEMPTS = 5;
     
     private final SecureRandom random = new SecureRandom();
     
     @Autowired
     private StringRedisTemplate redisTemplate;
+
+    private OtpStore otpStore;
+
+    @PostConstruct
+    public void initOtpStore() {
+        otpStore = new RedisOtpStore(redisTemplate, OTP_PREFIX, OTP_ATTEMPT_PREFIX);
+    }
     
     @Override
     public String generateOtp(String studentCode) {
         // Sinh OTP 6 chữ số
         String otp = String.format("%06d", random.nextInt(1000000));
         
-        // Lưu OTP vào Redis với thời gian hết hạn
-        String key = OTP_PREFIX + studentCode;
-        redisTemplate.opsForValue().set(key, otp);
-        redisTemplate.expire(key, OTP_EXPIRE_MINUTES, TimeUnit.MINUTES);
+        // Lưu OTP vào Redis với thời gian hết hạn (SET ... PX trong một round trip)
+        otpStore.save(studentCode, otp, Duration.ofMinutes(OTP_EXPIRE_MINUTES));
         
         return otp;
     }
+
+    @Override
+    public Map<String, String> generateOtps(Collection<String> studentCodes) {
+        Map<String, String> otps = new LinkedHashMap<>();
+        for (String studentCode : studentCodes) {
+            otps.put(studentCode, String.format("%06d", random.nextInt(1000000)));
+        }
+        // Toàn bộ OTP được ghi bằng một lần chạy script Redis
+        otpStore.saveAll(otps, Duration.ofMinutes(OTP_EXPIRE_MINUTES));
+        return otps;
+    }
     
     @Override
     public boolean verifyOtp(String studentCode, String otpCode) {
-        String key = OTP_PREFIX + studentCode;
-        String storedOtp = redisTemplate.opsForValue().get(key);
-        
-        if (storedOtp == null) {
-            return false; // OTP không tồn tại hoặc đã hết hạn
-        }
-        
-        return storedOtp.equals(otpCode);
+        // OTP đúng sẽ bị xóa ngay trong cùng thao tác kiểm tra
+        return otpStore.verify(studentCode, otpCode, MAX_OTP_ATTEMPTS) == OtpVerificationResult.VALID;
     }
     
     @Override
     public void removeOtp(String studentCode) {
-        String key = OTP_PREFIX + studentCode;
-        redisTemplate.delete(key);
+        otpStore.remove(studentCode);
     }
 }
\ No newline at end of file
@@ -0,0 +1,122 @@
+package com.example.tuition_service.service.impl;
+
+import com.example.common_library.dto.StudentDTO;
+import com.example.common_library.exception.ApiException;
+import com.example.common_library.exception.ErrorCode;
+import com.example.tuition_service.client.StudentServiceClient;
+import com.example.tuition_service.dto.MajorBackfillResult;
+import com.example.tuition_service.repository.TuitionBatchRepository;
+import com.example.tuition_service.service.TuitionMajorSyncService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+public class TuitionMajorSyncServiceImpl implements TuitionMajorSyncService {
+
+    @Value("${tuition.major-backfill.page-size:500}")
+    private int pageSize;
+
+    @Autowired
+    private TuitionBatchRepository tuitionBatchRepository;
+
+    @Autowired
+    private StudentServiceClient studentServiceClient;
+
+    @Override
+    public MajorBackfillResult backfillMajorCodes(String afterId, Integer maxRows) {
+        String cursor = afterId == null ? "" : afterId;
+        int limit = maxRows == null ? Integer.MAX_VALUE : Math.max(1, maxRows);
+        int scanned = 0;
+        int updated = 0;
+        int unresolved = 0;
+        // Sinh viên đã tra trong lần chạy này, tránh gọi student-service lặp lại
+        Map<String, String> majorByStudent = new HashMap<>();
+        Set<String> missingStudents = new HashSet<>();
+
+        while (scanned < limit) {
+            Map<String, String> page = tuitionBatchRepository.findStudentCodesWithoutMajor(
+                cursor, Math.min(pageSize, limit - scanned));
+            if (page.isEmpty()) {
+                break;
+            }
+
+            // Tra một lần cho mọi sinh viên chưa biết ngành trong trang
+            Set<String> unknown = new HashSet<>();
+            for (String studentCode : page.values()) {
+                if (!majorByStudent.containsKey(studentCode) && !missingStudents.contains(studentCode)) {
+                    unknown.add(studentCode);
+                }
+            }
+            if (!unknown.isEmpty()) {
+                Map<String, String> found = lookupMajorCodes(unknown);
+                // Lời gọi lỗi: không đánh dấu "không tồn tại", các dòng này để lại cho trang sau hoặc lần chạy sau
+                if (found != null) {
+                    majorByStudent.putAll(found);
+                    for (String studentCode : unknown) {
+                        if (!majorByStudent.containsKey(studentCode)) {
+                            missingStudents.add(studentCode);
+                        }
+                    }
+                }
+            }
+
+            Map<String, String> toFill = new HashMap<>();
+            for (Map.Entry<String, String> row : page.entrySet()) {
+                String majorCode = majorByStudent.get(row.getValue());
+                if (majorCode != null) {
+                    toFill.put(row.getValue(), majorCode);
+                } else {
+                    unresolved++;
+                }
+                cursor = row.getKey();
+            }
+
+            // Mỗi câu UPDATE tự commit: dừng giữa chừng thì lần sau chỉ còn các dòng chưa điền
+            updated += tuitionBatchRepository.fillMajorCodes(toFill);
+            scanned += page.size();
+        }
+        return new MajorBackfillResult(scanned, updated, unresolved, cursor.isEmpty() ? null : cursor);
+    }
+
+    @Override
+    public int resyncStudent(String studentCode) {
+        String majorCode = lookupMajorCode(studentCode);
+        if (majorCode == null) {
+            throw new ApiException(ErrorCode.STUDENT_NOT_FOUND,
+                "Student with code '" + studentCode + "' not found");
+        }
+        return tuitionBatchRepository.updateMajorCode(studentCode, majorCode);
+    }
+
+    // Trả về null nếu không gọi được student-service (khác với sinh viên không tồn tại)
+    private Map<String, String> lookupMajorCodes(Set<String> studentCodes) {
+        Map<String, String> result = new HashMap<>();
+        try {
+            for (StudentDTO student : studentServiceClient.getStudentsByCodes(studentCodes)) {
+                if (student.getStudentCode() != null && student.getMajorCode() != null) {
+                    result.put(student.getStudentCode(), student.getMajorCode());
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to look up majors of " + studentCodes.size() + " students: " + e.getMessage());
+            return null;
+        }
+        return result;
+    }
+
+    private String lookupMajorCode(String studentCode) {
+        try {
+            StudentDTO student = studentServiceClient.getStudentByCode(studentCode);
+            return student != null ? student.getMajorCode() : null;
+        } catch (Exception e) {
+            System.err.println("Failed to look up major of student " + studentCode + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
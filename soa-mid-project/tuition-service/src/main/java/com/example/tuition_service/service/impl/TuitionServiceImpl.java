@@ -7,26 +7,70 @@ import com.example.tuition_service.client.NotificationServiceClient;
 import com.example.tuition_service.client.StudentServiceClient;
 import com.example.tuition_service.dto.*;
 import com.example.tuition_service.model.Tuition;
+import com.example.tuition_service.repository.TuitionBatchRepository;
+import com.example.tuition_service.repository.TuitionExportRepository;
 import com.example.tuition_service.repository.TuitionRepository;
 import com.example.tuition_service.service.OtpService;
 import com.example.tuition_service.service.TuitionService;
 import com.example.tuition_service.util.TuitionValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.HttpClientErrorException;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @Service
 public class TuitionServiceImpl implements TuitionService {
+
+    // Số mã tối đa trong một câu IN khi lấy học phí theo lô
+    private static final int BATCH_LOOKUP_CHUNK_SIZE = 500;
     
+    @Value("${tuition.search.default-page-size:50}")
+    private int searchDefaultPageSize;
+
+    @Value("${tuition.search.max-page-size:500}")
+    private int searchMaxPageSize;
+
     @Autowired
     private TuitionRepository tuitionRepository;
+
+    @Autowired
+    private TuitionBatchRepository tuitionBatchRepository;
+
+    @Autowired
+    private TuitionExportRepository tuitionExportRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
     
     @Autowired
     private StudentServiceClient studentServiceClient;
@@ -40,6 +84,14 @@ public class TuitionServiceImpl implements TuitionService {
     @Autowired
     private NotificationServiceClient notificationServiceClient;
 
+    @Autowired
+    @Qualifier("inquiryOtpExecutor")
+    private Executor inquiryOtpExecutor;
+
+    // Số OTP sinh và gửi mỗi lô khi gửi theo ngành
+    @Value("${tuition.inquiry.otp-chunk-size:50}")
+    private int inquiryOtpChunkSize;
+
     @Override
     public TuitionDTO updateTuitionStatus(String tuitionId, StatusUpdateDTO statusUpdateDTO) {
         Tuition tuition = tuitionRepository.findById(tuitionId)
@@ -76,42 +128,57 @@ public class TuitionServiceImpl implements TuitionService {
                 "Major '" + request.getMajorCode() + "' exists but has no students");
         }
         
+        // Một câu truy vấn lấy các mã học phí đã có trong học kỳ, sinh viên đã có học phí thì bỏ qua
+        Set<String> existingIds = tuitionBatchRepository.findTuitionIdsBySemester(request.getSemester());
+        BigDecimal amount = BigDecimal.valueOf(request.getAmount());
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Tuition> newTuitions = new ArrayList<>();
         List<TuitionResponse> tuitionResponses = new ArrayList<>();
+        int skipped = 0;
 
         for (StudentDTO student : students) {
             String tuitionCode = request.getSemester() + student.getStudentCode();
-
-            // Kiểm tra đã tồn tại học phí cho sinh viên này trong học kỳ chưa
-            if (tuitionRepository.existsById(tuitionCode)) {
-                throw new ApiException(ErrorCode.BAD_REQUEST, 
-                    "Tuition already exists for student " + student.getStudentCode() + 
-                    " in semester " + request.getSemester());
+            if (!existingIds.add(tuitionCode)) {
+                skipped++;
+                continue;
             }
 
             Tuition tuition = new Tuition();
             tuition.setTuitionId(tuitionCode);
             tuition.setStudentCode(student.getStudentCode());
             tuition.setSemester(request.getSemester());
-            tuition.setAmount(BigDecimal.valueOf(request.getAmount()));
+            tuition.setMajorCode(request.getMajorCode());
+            tuition.setAmount(amount);
             tuition.setStatus("Chưa thanh toán");
             tuition.setDueDate(dueDate);  // Sử dụng dueDate từ request
-            tuition = tuitionRepository.save(tuition);
+            tuition.setCreatedAt(now);
+            newTuitions.add(tuition);
 
-            TuitionResponse tuitionResponse = new TuitionResponse(
+            tuitionResponses.add(new TuitionResponse(
                 tuition.getTuitionId(),
                 student.getStudentCode(),
                 student.getName(),
                 student.getMajorCode(),
                 request.getAmount(),
                 tuition.getStatus()
-            );
-            tuitionResponses.add(tuitionResponse);
+            ));
+        }
+
+        // Chèn cả lô trong một transaction: lỗi giữa chừng (vd. bị tạo trùng đồng thời) thì không tạo học phí nào
+        try {
+            transactionTemplate.executeWithoutResult(status -> tuitionBatchRepository.insertAll(newTuitions));
+        } catch (DuplicateKeyException e) {
+            throw new ApiException(ErrorCode.BAD_REQUEST,
+                "Tuitions for semester " + request.getSemester() + " were created concurrently, please retry");
         }
 
         TuitionMajorResponse response = new TuitionMajorResponse();
         response.setSemester(request.getSemester());
         response.setMajorCode(request.getMajorCode());
         response.setTuitions(tuitionResponses);
+        response.setCreatedCount(newTuitions.size());
+        response.setSkippedCount(skipped);
         return response;
     }
     
@@ -122,6 +189,24 @@ public class TuitionServiceImpl implements TuitionService {
                 .orElse(null);
     }
     
+    @Override
+    public List<TuitionDTO> getTuitionsByCodes(Collection<String> tuitionCodes) {
+        if (tuitionCodes == null || tuitionCodes.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> codes = tuitionCodes.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+
+        List<TuitionDTO> result = new ArrayList<>(codes.size());
+        for (int from = 0; from < codes.size(); from += BATCH_LOOKUP_CHUNK_SIZE) {
+            List<String> chunk = codes.subList(from, Math.min(from + BATCH_LOOKUP_CHUNK_SIZE, codes.size()));
+            tuitionRepository.findAllById(chunk).forEach(t -> result.add(convertToDTO(t)));
+        }
+        return result;
+    }
+    
     @Override
     public StudentTuitionResponse getStudentTuitions(int studentId) {
         // Lấy thông tin sinh viên từ StudentService
@@ -200,6 +285,36 @@ public class TuitionServiceImpl implements TuitionService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public TuitionPage getTuitionPage(Integer page, String cursor, Integer size) {
+        if (page == null) {
+            return searchTuitionsPage(null, null, cursor, size);
+        }
+        int pageSize = size == null ? searchDefaultPageSize : Math.max(1, Math.min(size, searchMaxPageSize));
+        Page<Tuition> result = tuitionRepository.findAll(
+                PageRequest.of(Math.max(0, page), pageSize, Sort.by("tuitionId")));
+        List<TuitionDTO> items = result.getContent().stream().map(this::convertToDTO).collect(Collectors.toList());
+        String nextCursor = result.hasNext() && !items.isEmpty() ? items.get(items.size() - 1).getTuitionCode() : null;
+        return new TuitionPage(items, nextCursor, result.hasNext());
+    }
+
+    @Override
+    public void exportAllTuition(OutputStream out) {
+        tuitionExportRepository.streamAll(t -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(convertToDTO(t)));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @Override
     public void requestTuitionInquiry(String studentCode) {
         // Lấy thông tin sinh viên
@@ -231,6 +346,73 @@ public class TuitionServiceImpl implements TuitionService {
         }
     }
 
+    @Override
+    public int requestTuitionInquiryByMajor(String majorCode) {
+        List<StudentDTO> students;
+        try {
+            students = studentServiceClient.getStudentsByMajor(majorCode);
+        } catch (Exception e) {
+            throw new ApiException(ErrorCode.INTERNAL_ERROR,
+                "Failed to fetch students for major '" + majorCode + "': " + e.getMessage());
+        }
+        if (students == null || students.isEmpty()) {
+            throw new ApiException(ErrorCode.STUDENT_NOT_FOUND,
+                "No students found for major '" + majorCode + "'");
+        }
+
+        Map<String, StudentDTO> studentsByCode = new LinkedHashMap<>();
+        for (StudentDTO student : students) {
+            if (student.getStudentCode() != null && student.getEmail() != null) {
+                studentsByCode.put(student.getStudentCode(), student);
+            }
+        }
+        List<List<String>> chunks = new ArrayList<>();
+        List<String> codes = new ArrayList<>(studentsByCode.keySet());
+        for (int from = 0; from < codes.size(); from += inquiryOtpChunkSize) {
+            chunks.add(codes.subList(from, Math.min(from + inquiryOtpChunkSize, codes.size())));
+        }
+
+        // Gửi email trên pool riêng; thread request chỉ xếp hàng công việc rồi trả về
+        try {
+            inquiryOtpExecutor.execute(() -> sendInquiryOtpChunks(majorCode, chunks, studentsByCode));
+        } catch (RejectedExecutionException e) {
+            throw new ApiException(ErrorCode.SERVICE_BUSY,
+                "Đang có quá nhiều yêu cầu gửi OTP theo ngành, vui lòng thử lại sau");
+        }
+        return studentsByCode.size();
+    }
+
+    // OTP của mỗi lô được sinh (một round trip Redis) ngay trước khi gửi lô đó,
+    // để lô cuối không hết hạn trong lúc các lô trước còn đang gửi
+    private void sendInquiryOtpChunks(String majorCode, List<List<String>> chunks,
+                                      Map<String, StudentDTO> studentsByCode) {
+        int sent = 0;
+        for (List<String> chunk : chunks) {
+            Map<String, String> otpCodes;
+            try {
+                otpCodes = otpService.generateOtps(chunk);
+            } catch (Exception e) {
+                System.err.println("Failed to issue inquiry OTPs for major " + majorCode + ": " + e.getMessage());
+                continue;
+            }
+            for (Map.Entry<String, String> entry : otpCodes.entrySet()) {
+                StudentDTO student = studentsByCode.get(entry.getKey());
+                try {
+                    OtpEmailRequest request = new OtpEmailRequest();
+                    request.setToEmail(student.getEmail());
+                    request.setOtpCode(entry.getValue());
+                    request.setExpireMinutes(1);
+                    request.setUserName(student.getName());
+                    notificationServiceClient.sendInquiryOtp(request);
+                    sent++;
+                } catch (Exception e) {
+                    System.err.println("Failed to send inquiry OTP to " + entry.getKey() + ": " + e.getMessage());
+                }
+            }
+        }
+        System.out.println("Sent " + sent + "/" + studentsByCode.size() + " inquiry OTPs for major " + majorCode);
+    }
+
     @Override
     public StudentTuitionResponse verifyOtpAndGetTuitions(String studentCode, String otpCode) {
         // Verify OTP
@@ -277,67 +459,85 @@ public class TuitionServiceImpl implements TuitionService {
         
         response.setTuitions(tuitionInfos);
         
-        // Xóa OTP sau khi verify thành công
-        otpService.removeOtp(studentCode);
-        
         return response;
     }
 
     @Override
     public List<TuitionDTO> searchTuitions(String majorCode, String semester) {
-        if (majorCode != null && semester != null) {
-            // Tìm học phí theo cả mã ngành và học kỳ
-            List<StudentDTO> students = studentServiceClient.getStudentsByMajor(majorCode);
-            if (students.isEmpty()) {
-                return Collections.emptyList();
-            }
-            
-            // Lấy danh sách mã sinh viên từ ngành
-            List<String> studentCodes = students.stream()
-                    .map(StudentDTO::getStudentCode)
-                    .collect(Collectors.toList());
-                    
-            // Tìm học phí khớp với cả mã sinh viên và học kỳ
-            List<Tuition> tuitions = tuitionRepository.findAll()
-                    .stream()
-                    .filter(t -> t.getSemester().equals(semester) && 
-                            studentCodes.contains(t.getStudentCode()))
-                    .collect(Collectors.toList());
-                    
-            return tuitions.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
-                    
-        } else if (majorCode != null) {
-            // Chỉ tìm theo mã ngành
-            List<StudentDTO> students = studentServiceClient.getStudentsByMajor(majorCode);
-            if (students.isEmpty()) {
-                return Collections.emptyList();
+        if (majorCode == null) {
+            return semester != null
+                    ? tuitionRepository.findBySemester(semester).stream().map(this::convertToDTO).collect(Collectors.toList())
+                    : getAllTuition();
+        }
+
+        // Học phí đã có major_code: một câu truy vấn theo index (major_code, semester)
+        List<Tuition> tuitions = new ArrayList<>(semester != null
+                ? tuitionRepository.findByMajorCodeAndSemester(majorCode, semester)
+                : tuitionRepository.findByMajorCode(majorCode));
+
+        // Chỉ khi học kỳ còn dòng chưa backfill: hỏi student-service rồi lọc riêng các dòng major_code NULL, mỗi nhóm một câu IN
+        if (tuitionBatchRepository.existsWithoutMajor(semester)) {
+            List<String> studentCodes = getStudentCodesOfMajor(majorCode);
+            for (int from = 0; from < studentCodes.size(); from += BATCH_LOOKUP_CHUNK_SIZE) {
+                List<String> chunk = studentCodes.subList(from, Math.min(from + BATCH_LOOKUP_CHUNK_SIZE, studentCodes.size()));
+                tuitions.addAll(semester != null
+                        ? tuitionRepository.findBySemesterAndMajorCodeIsNullAndStudentCodeIn(semester, chunk)
+                        : tuitionRepository.findByMajorCodeIsNullAndStudentCodeIn(chunk));
             }
-            
-            List<String> studentCodes = students.stream()
-                    .map(StudentDTO::getStudentCode)
-                    .collect(Collectors.toList());
-                    
-            List<Tuition> tuitions = tuitionRepository.findAll()
-                    .stream()
-                    .filter(t -> studentCodes.contains(t.getStudentCode()))
-                    .collect(Collectors.toList());
-                    
-            return tuitions.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
-                    
-        } else if (semester != null) {
-            // Chỉ tìm theo học kỳ
-            List<Tuition> tuitions = tuitionRepository.findBySemester(semester);
-            return tuitions.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
-                    
+        }
+        return tuitions.stream().map(this::convertToDTO).collect(Collectors.toList());
+    }
+
+    @Override
+    public TuitionPage searchTuitionsPage(String majorCode, String semester, String cursor, Integer size) {
+        int pageSize = size == null ? searchDefaultPageSize : Math.max(1, Math.min(size, searchMaxPageSize));
+        String afterId = cursor == null ? "" : cursor;
+        // Lấy thêm 1 dòng để biết còn trang sau hay không
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        List<Tuition> rows;
+        if (majorCode == null) {
+            rows = semester != null
+                    ? tuitionRepository.findPageBySemesterAfter(semester, afterId, limit)
+                    : tuitionRepository.findPageAfter(afterId, limit);
         } else {
-            // Không có filter, trả về tất cả
-            return getAllTuition();
+            rows = new ArrayList<>(semester != null
+                    ? tuitionRepository.findPageByMajorCodeAndSemesterAfter(majorCode, semester, afterId, limit)
+                    : tuitionRepository.findPageByMajorCodeAfter(majorCode, afterId, limit));
+            if (tuitionBatchRepository.existsWithoutMajor(semester)) {
+                // Dòng chưa backfill: mỗi nhóm mã sinh viên trả tối đa pageSize + 1 dòng sau cursor, gộp với trang theo index rồi lấy các dòng nhỏ nhất
+                List<String> studentCodes = getStudentCodesOfMajor(majorCode);
+                for (int from = 0; from < studentCodes.size(); from += BATCH_LOOKUP_CHUNK_SIZE) {
+                    List<String> chunk = studentCodes.subList(from, Math.min(from + BATCH_LOOKUP_CHUNK_SIZE, studentCodes.size()));
+                    rows.addAll(semester != null
+                            ? tuitionRepository.findPageWithoutMajorBySemesterAndStudentCodesAfter(semester, chunk, afterId, limit)
+                            : tuitionRepository.findPageWithoutMajorByStudentCodesAfter(chunk, afterId, limit));
+                }
+                rows.sort(Comparator.comparing(Tuition::getTuitionId));
+                if (rows.size() > pageSize + 1) {
+                    rows = rows.subList(0, pageSize + 1);
+                }
+            }
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
         }
+        String nextCursor = hasMore ? rows.get(rows.size() - 1).getTuitionId() : null;
+        List<TuitionDTO> items = rows.stream().map(this::convertToDTO).collect(Collectors.toList());
+        return new TuitionPage(items, nextCursor, hasMore);
+    }
+
+    private List<String> getStudentCodesOfMajor(String majorCode) {
+        List<StudentDTO> students = studentServiceClient.getStudentsByMajor(majorCode);
+        if (students == null) {
+            return Collections.emptyList();
+        }
+        return students.stream()
+                .map(StudentDTO::getStudentCode)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+}
@@ -8,7 +8,11 @@ CREATE TABLE tuitions (
                           student_code VARCHAR(255) NOT NULL,
                           amount DECIMAL(19, 2) NOT NULL,
                           semester VARCHAR(255) NOT NULL,
+                          major_code VARCHAR(255),
                           due_date DATE,
                           status VARCHAR(255) NOT NULL,
-                          created_at TIMESTAMP
+                          created_at TIMESTAMP,
+                          INDEX idx_tuitions_semester_student (semester, student_code),  -- Tìm theo học kỳ + ngành
+                          INDEX idx_tuitions_student_code (student_code),
+                          INDEX idx_tuitions_major_semester (major_code, semester)  -- Tìm theo ngành không cần gọi student-service
 );
@@ -0,0 +1,272 @@
+package com.example.tuition_service.service.impl;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Đo số round trip Redis cho mỗi OTP khi phát OTP tra cứu học phí:
+ * - trước: SET rồi EXPIRE (hai lệnh chờ nhau)
+ * - sau, từng OTP: generateOtp (SET ... PX và DEL bộ đếm trong một Lua script)
+ * - sau, theo lô: generateOtps với lô bằng tuition.inquiry.otp-chunk-size (mặc định 50)
+ * Redis chạy nhúng (embedded-redis). Lệnh đi qua một proxy cộng thêm LATENCY_MS độ trễ một chiều,
+ * nên thời gian mỗi OTP chia cho độ trễ đó chính là số round trip. Số OTP/giây khi nối thẳng cũng được in ra.
+ * Không chạy trong mvn test mặc định. Chạy: mvn -B test -pl tuition-service -Dtest=OtpIssuanceBenchmark
+ */
+class OtpIssuanceBenchmark {
+
+    private static final long LATENCY_MS = 5;
+    private static final int OTPS_WITH_LATENCY = 200;
+    private static final int OTPS_DIRECT = 20_000;
+    private static final int CHUNK_SIZE = 50;
+    private static final String OTP_PREFIX = "tuition:otp:inquiry:";
+
+    private static RedisServer redisServer;
+    private static LatencyProxy proxy;
+    private static LettuceConnectionFactory directFactory;
+    private static LettuceConnectionFactory delayedFactory;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int redisPort = freePort();
+        redisServer = new RedisServer(redisPort);
+        redisServer.start();
+        proxy = new LatencyProxy(redisPort, LATENCY_MS);
+        directFactory = connectionFactory(redisPort);
+        delayedFactory = connectionFactory(proxy.port());
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        if (directFactory != null) {
+            directFactory.destroy();
+        }
+        if (delayedFactory != null) {
+            delayedFactory.destroy();
+        }
+        if (proxy != null) {
+            proxy.close();
+        }
+        if (redisServer != null) {
+            redisServer.stop();
+        }
+    }
+
+    @Test
+    void roundTripsPerOtp() {
+        StringRedisTemplate direct = template(directFactory);
+        StringRedisTemplate delayed = template(delayedFactory);
+        OtpServiceImpl directService = otpService(direct);
+        OtpServiceImpl delayedService = otpService(delayed);
+
+        List<String> warmupCodes = studentCodes("W", 5_000);
+        runAll(direct, directService, warmupCodes);
+
+        System.out.printf("Injected one-way latency: %d ms%n", LATENCY_MS);
+        System.out.printf("%-32s %14s %14s%n", "mode", "round trips", "OTPs/s direct");
+        report("before: SET + EXPIRE", OTPS_WITH_LATENCY, OTPS_DIRECT,
+            codes -> codes.forEach(code -> setThenExpire(delayed, code)),
+            codes -> codes.forEach(code -> setThenExpire(direct, code)));
+        report("after: generateOtp (SET PX)", OTPS_WITH_LATENCY, OTPS_DIRECT,
+            codes -> codes.forEach(delayedService::generateOtp),
+            codes -> codes.forEach(directService::generateOtp));
+        report("after: generateOtps, chunk " + CHUNK_SIZE, OTPS_WITH_LATENCY * 10, OTPS_DIRECT,
+            codes -> inChunks(codes, delayedService::generateOtps),
+            codes -> inChunks(codes, directService::generateOtps));
+
+        // OTP ghi theo lô vẫn có TTL
+        Long ttl = direct.getExpire(OTP_PREFIX + "D" + (OTPS_DIRECT - 1), TimeUnit.MILLISECONDS);
+        assertThat(ttl).isPositive();
+        String otp = directService.generateOtps(List.of("V1", "V2")).get("V2");
+        assertThat(directService.verifyOtp("V2", otp)).isTrue();
+    }
+
+    private static void report(String label, int delayedCount, int directCount,
+                               Consumer<List<String>> withLatency, Consumer<List<String>> withoutLatency) {
+        List<String> delayedCodes = studentCodes("L", delayedCount);
+        long start = System.nanoTime();
+        withLatency.accept(delayedCodes);
+        double msPerOtp = (System.nanoTime() - start) / 1e6 / delayedCount;
+
+        List<String> directCodes = studentCodes("D", directCount);
+        start = System.nanoTime();
+        withoutLatency.accept(directCodes);
+        double otpsPerSecond = directCount / ((System.nanoTime() - start) / 1e9);
+
+        System.out.printf("%-32s %14.3f %14.0f%n", label, msPerOtp / LATENCY_MS, otpsPerSecond);
+    }
+
+    private static void runAll(StringRedisTemplate template, OtpServiceImpl service, List<String> codes) {
+        codes.forEach(code -> setThenExpire(template, code));
+        codes.forEach(service::generateOtp);
+        inChunks(codes, service::generateOtps);
+    }
+
+    // Cách ghi OTP trước khi đổi sang SET ... PX
+    private static void setThenExpire(StringRedisTemplate template, String studentCode) {
+        String key = OTP_PREFIX + studentCode;
+        template.opsForValue().set(key, "123456");
+        template.expire(key, 1, TimeUnit.MINUTES);
+    }
+
+    private static void inChunks(List<String> codes, Consumer<List<String>> action) {
+        for (int i = 0; i < codes.size(); i += CHUNK_SIZE) {
+            action.accept(codes.subList(i, Math.min(i + CHUNK_SIZE, codes.size())));
+        }
+    }
+
+    private static OtpServiceImpl otpService(StringRedisTemplate template) {
+        OtpServiceImpl service = new OtpServiceImpl();
+        ReflectionTestUtils.setField(service, "redisTemplate", template);
+        service.initOtpStore();
+        return service;
+    }
+
+    private static List<String> studentCodes(String prefix, int count) {
+        List<String> codes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            codes.add(prefix + i);
+        }
+        return codes;
+    }
+
+    private static LettuceConnectionFactory connectionFactory(int port) {
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        factory.afterPropertiesSet();
+        factory.start();
+        return factory;
+    }
+
+    private static StringRedisTemplate template(LettuceConnectionFactory factory) {
+        StringRedisTemplate template = new StringRedisTemplate(factory);
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Proxy TCP cộng độ trễ cố định cho chiều client -> Redis. Mỗi gói được chuyển tiếp sau
+     * thời điểm nhận + độ trễ, không chờ gói trước, nên lệnh pipeline vẫn chỉ tốn một lần trễ.
+     */
+    private static final class LatencyProxy {
+
+        private final ServerSocket serverSocket;
+        private final List<Socket> sockets = new ArrayList<>();
+
+        LatencyProxy(int targetPort, long latencyMs) throws IOException {
+            serverSocket = new ServerSocket(0);
+            Thread acceptor = new Thread(() -> {
+                while (!serverSocket.isClosed()) {
+                    try {
+                        Socket client = serverSocket.accept();
+                        Socket server = new Socket("localhost", targetPort);
+                        client.setTcpNoDelay(true);
+                        server.setTcpNoDelay(true);
+                        synchronized (sockets) {
+                            sockets.add(client);
+                            sockets.add(server);
+                        }
+                        forwardDelayed(client, server, latencyMs);
+                        forward(server, client);
+                    } catch (IOException e) {
+                        return;
+                    }
+                }
+            }, "latency-proxy-accept");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int port() {
+            return serverSocket.getLocalPort();
+        }
+
+        void close() throws IOException {
+            serverSocket.close();
+            synchronized (sockets) {
+                for (Socket socket : sockets) {
+                    socket.close();
+                }
+            }
+        }
+
+        private static void forwardDelayed(Socket from, Socket to, long latencyMs) throws IOException {
+            BlockingQueue<Object[]> packets = new LinkedBlockingQueue<>();
+            InputStream in = from.getInputStream();
+            OutputStream out = to.getOutputStream();
+            daemon(() -> {
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    packets.add(new Object[] {System.nanoTime() + latencyMs * 1_000_000L, Arrays.copyOf(buffer, read)});
+                }
+            });
+            daemon(() -> {
+                while (true) {
+                    Object[] packet = packets.take();
+                    long waitNanos = (long) packet[0] - System.nanoTime();
+                    if (waitNanos > 0) {
+                        TimeUnit.NANOSECONDS.sleep(waitNanos);
+                    }
+                    out.write((byte[]) packet[1]);
+                    out.flush();
+                }
+            });
+        }
+
+        private static void forward(Socket from, Socket to) throws IOException {
+            InputStream in = from.getInputStream();
+            OutputStream out = to.getOutputStream();
+            daemon(() -> {
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                    out.flush();
+                }
+            });
+        }
+
+        private static void daemon(IoTask task) {
+            Thread thread = new Thread(() -> {
+                try {
+                    task.run();
+                } catch (IOException | InterruptedException e) {
+                    // Kết nối đóng khi benchmark kết thúc
+                }
+            }, "latency-proxy-io");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    @FunctionalInterface
+    private interface IoTask {
+        void run() throws IOException, InterruptedException;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.tuition_service.service.impl;
+
+import com.example.common_library.dto.StudentDTO;
+import com.example.tuition_service.client.NotificationServiceClient;
+import com.example.tuition_service.client.StudentServiceClient;
+import com.example.tuition_service.dto.TuitionMajorRequest;
+import com.example.tuition_service.dto.TuitionMajorResponse;
+import com.example.tuition_service.model.Tuition;
+import com.example.tuition_service.repository.TuitionBatchRepository;
+import com.example.tuition_service.repository.TuitionExportRepository;
+import com.example.tuition_service.repository.TuitionRepository;
+import com.example.tuition_service.service.OtpService;
+import com.example.tuition_service.util.TuitionValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * So sánh tạo học phí theo ngành cho 10k và 100k sinh viên:
+ * - trước: mỗi sinh viên một lần existsById và một lần save (mỗi lần một transaction)
+ * - sau: createTuitionByMajor (một câu lấy mã đã có + JDBC batch trong một transaction)
+ * Không chạy trong mvn test mặc định. Chạy: mvn -B test -pl tuition-service -Dtest=TuitionGenerationBenchmark
+ * Mặc định chạy trên H2 in-memory (không có độ trễ mạng nên chênh lệch nhỏ hơn thực tế).
+ * Đo trên MySQL: thêm -Dbenchmark.mysql.url=jdbc:mysql://localhost:3307/tuition_bench?rewriteBatchedStatements=true
+ * (database riêng, bảng tuitions bị tạo lại và xóa sau khi chạy).
+ */
+@DataJpaTest(properties = {
+    "spring.sql.init.mode=never",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TuitionServiceImpl.class, TuitionBatchRepository.class, TuitionExportRepository.class,
+    TuitionValidator.class, ObjectMapper.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TuitionGenerationBenchmark {
+
+    private static final int[] STUDENT_COUNTS = {10_000, 100_000};
+    private static final String MAJOR_CODE = "CNTT";
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        String mysqlUrl = System.getProperty("benchmark.mysql.url");
+        if (mysqlUrl != null) {
+            registry.add("spring.datasource.url", () -> mysqlUrl);
+            registry.add("spring.datasource.driver-class-name", () -> "com.mysql.cj.jdbc.Driver");
+            registry.add("spring.datasource.username", () -> System.getProperty("benchmark.mysql.username", "root"));
+            registry.add("spring.datasource.password", () -> System.getProperty("benchmark.mysql.password", "root"));
+        } else {
+            registry.add("spring.datasource.url", () -> "jdbc:h2:mem:tuition_bench;MODE=MySQL;DB_CLOSE_DELAY=-1");
+            registry.add("spring.datasource.driver-class-name", () -> "org.h2.Driver");
+            registry.add("spring.datasource.username", () -> "sa");
+            registry.add("spring.datasource.password", () -> "");
+        }
+    }
+
+    @Autowired
+    private TuitionServiceImpl tuitionService;
+
+    @Autowired
+    private TuitionRepository tuitionRepository;
+
+    @MockitoBean
+    private StudentServiceClient studentServiceClient;
+
+    @MockitoBean
+    private OtpService otpService;
+
+    @MockitoBean
+    private NotificationServiceClient notificationServiceClient;
+
+    @MockitoBean(name = "inquiryOtpExecutor")
+    private Executor inquiryOtpExecutor;
+
+    @Test
+    void generateTuitionsForMajor() {
+        String semester = "1" + (LocalDate.now().getYear() + 1);
+        String dueDate = LocalDate.now().plusDays(30).format(DateTimeFormatter.ofPattern("dd-MM-yyyy"));
+
+        // Làm nóng JIT, Hibernate và JDBC cho cả hai cách
+        List<StudentDTO> warmup = students(20_000);
+        perRow(warmup, semester, dueDate);
+        tuitionRepository.deleteAllInBatch();
+        batched(warmup, semester, dueDate);
+        tuitionRepository.deleteAllInBatch();
+
+        System.out.printf("%-10s %14s %14s %10s%n", "students", "per-row ms", "batched ms", "speedup");
+        for (int count : STUDENT_COUNTS) {
+            List<StudentDTO> students = students(count);
+
+            long start = System.nanoTime();
+            perRow(students, semester, dueDate);
+            double perRowMs = (System.nanoTime() - start) / 1e6;
+            assertThat(tuitionRepository.count()).isEqualTo(count);
+            tuitionRepository.deleteAllInBatch();
+
+            start = System.nanoTime();
+            TuitionMajorResponse response = batched(students, semester, dueDate);
+            double batchedMs = (System.nanoTime() - start) / 1e6;
+            assertThat(response.getCreatedCount()).isEqualTo(count);
+            assertThat(tuitionRepository.count()).isEqualTo(count);
+            tuitionRepository.deleteAllInBatch();
+
+            System.out.printf("%-10d %14.0f %14.0f %9.1fx%n", count, perRowMs, batchedMs, perRowMs / batchedMs);
+        }
+    }
+
+    // Cách làm trước khi chuyển sang batch: kiểm tra và lưu từng học phí
+    private void perRow(List<StudentDTO> students, String semester, String dueDate) {
+        LocalDate due = LocalDate.parse(dueDate, DateTimeFormatter.ofPattern("dd-MM-yyyy"));
+        for (StudentDTO student : students) {
+            String tuitionCode = semester + student.getStudentCode();
+            if (tuitionRepository.existsById(tuitionCode)) {
+                throw new IllegalStateException("Tuition already exists: " + tuitionCode);
+            }
+            Tuition tuition = new Tuition();
+            tuition.setTuitionId(tuitionCode);
+            tuition.setStudentCode(student.getStudentCode());
+            tuition.setSemester(semester);
+            tuition.setMajorCode(MAJOR_CODE);
+            tuition.setAmount(BigDecimal.valueOf(15_000_000));
+            tuition.setStatus("Chưa thanh toán");
+            tuition.setDueDate(due);
+            tuition.setCreatedAt(LocalDateTime.now());
+            tuitionRepository.save(tuition);
+        }
+    }
+
+    private TuitionMajorResponse batched(List<StudentDTO> students, String semester, String dueDate) {
+        when(studentServiceClient.getStudentsByMajor(MAJOR_CODE)).thenReturn(students);
+        return tuitionService.createTuitionByMajor(new TuitionMajorRequest(semester, MAJOR_CODE, 15_000_000, dueDate));
+    }
+
+    private static List<StudentDTO> students(int count) {
+        List<StudentDTO> students = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            String code = String.format("SV%07d", i);
+            students.add(new StudentDTO(i, code, "Sinh viên " + i, 20, code.toLowerCase() + "@student.edu.vn",
+                "0900000000", MAJOR_CODE, "Công nghệ thông tin"));
+        }
+        return students;
+    }
+}
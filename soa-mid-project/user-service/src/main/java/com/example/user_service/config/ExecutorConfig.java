@@ -0,0 +1,33 @@
+package com.example.user_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    @Value("${user.password.hash-pool-size:4}")
+    private int hashPoolSize;
+
+    @Value("${user.password.hash-queue-capacity:100}")
+    private int hashQueueCapacity;
+
+    // Pool riêng cho BCrypt để giới hạn số hash chạy song song theo số core.
+    // Thread request vẫn chờ kết quả; số thread chờ bị giới hạn bởi semaphore trong PasswordServiceImpl.
+    // Khi pool và hàng đợi đầy thì từ chối ngay (trả 503) thay vì chạy trên thread request.
+    @Bean(name = "passwordHashExecutor")
+    public ThreadPoolTaskExecutor passwordHashExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hashPoolSize);
+        executor.setMaxPoolSize(hashPoolSize);
+        executor.setQueueCapacity(hashQueueCapacity);
+        executor.setThreadNamePrefix("password-hash-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
@@ -1,23 +1,76 @@
 package com.example.user_service.config;
 
 import java.io.IOException;
+import java.util.List;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.example.common_library.exception.ApiException;
+import com.example.common_library.security.GatewayHeaders;
+import com.example.user_service.dto.TokenInfo;
+
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
+// Request qua api-gateway (có đúng secret nội bộ): đọc header do gateway gắn vào, không parse lại token.
+// Request gọi thẳng vào user-service: bỏ qua các header đó và tự kiểm tra Bearer token.
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
 
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtService jwtService;
+    private final String gatewaySecret;
+
+    public JwtAuthFilter(JwtService jwtService, @Value("${gateway.internal-secret:}") String gatewaySecret) {
+        this.jwtService = jwtService;
+        this.gatewaySecret = gatewaySecret;
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            if (GatewayHeaders.isFromGateway(request.getHeader(GatewayHeaders.SECRET), gatewaySecret)) {
+                String username = request.getHeader(GatewayHeaders.USERNAME);
+                if (username != null) {
+                    authenticate(username, request.getHeader(GatewayHeaders.ROLE),
+                            request.getHeader(GatewayHeaders.USER_ID));
+                }
+            } else {
+                String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+                if (authHeader != null && authHeader.startsWith(BEARER_PREFIX)) {
+                    try {
+                        TokenInfo info = jwtService.validate(authHeader.substring(BEARER_PREFIX.length()).trim());
+                        authenticate(info.getUsername(), info.getRole(),
+                                info.getUserId() != null ? String.valueOf(info.getUserId()) : null);
+                    } catch (ApiException e) {
+                        // Token sai: không gắn Authentication, Spring Security sẽ chặn endpoint cần đăng nhập
+                    }
+                }
+            }
+        }
+
         filterChain.doFilter(request, response);
 
     }
+
+    private void authenticate(String username, String role, String userId) {
+        List<SimpleGrantedAuthority> authorities = role != null
+                ? List.of(new SimpleGrantedAuthority("ROLE_" + role))
+                : List.of();
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken(username, null, authorities);
+        authentication.setDetails(userId);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
 }
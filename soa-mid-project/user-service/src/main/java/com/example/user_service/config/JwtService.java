@@ -1,13 +1,19 @@
 package com.example.user_service.config;
 
+import com.example.common_library.exception.ApiException;
+import com.example.common_library.exception.ErrorCode;
+import com.example.user_service.dto.TokenInfo;
 import com.example.user_service.model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import java.nio.charset.StandardCharsets;
 import java.util.function.Function;
 import java.security.Key;
 import java.util.Date;
@@ -20,9 +26,18 @@ public class JwtService {
     @Value("${jwt.secret}")
     private String SECRET_KEY;
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    // Key và parser được tạo một lần khi khởi động; JwtParser không đổi trạng thái nên dùng chung giữa các thread
+    private Key signingKey;
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(SECRET_KEY.getBytes(StandardCharsets.UTF_8));
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
     }
+
     public String generateToken(User user)  {
         Map<String, Object> claims = new HashMap<>();
         claims.put("id", user.getId());
@@ -32,18 +47,22 @@ public class JwtService {
                 .setSubject(user.getUsername())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 24))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
+    // Parse và kiểm tra chữ ký, hạn dùng một lần rồi trả về toàn bộ thông tin cần dùng
+    public TokenInfo validate(String token) {
+        Claims claims = parseClaims(token);
+        return new TokenInfo(
+                claims.getSubject(),
+                claims.get("id", Long.class),
+                claims.get("role", String.class),
+                claims.getExpiration());
+    }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims =  Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claimsResolver.apply(claims);
+        return claimsResolver.apply(parseClaims(token));
     }
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
@@ -59,10 +78,18 @@ public class JwtService {
     }
 
     public boolean validateToken(String token, User user) {
-        return extractUsername(token).equals(user.getUsername()) && !isTokenExpired(token);
+        // parseClaims đã từ chối token hết hạn, không cần parse lần hai để kiểm tra expiration
+        return validate(token).getUsername().equals(user.getUsername());
     }
     public boolean isTokenExpired(String token) {
         return extractClaim(token, Claims::getExpiration).before(new Date());
     }
 
+    private Claims parseClaims(String token) {
+        try {
+            return jwtParser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new ApiException(ErrorCode.INVALID_CREDENTIALS, "Invalid or expired token");
+        }
+    }
 }
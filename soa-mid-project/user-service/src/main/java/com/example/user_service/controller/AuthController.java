@@ -1,10 +1,12 @@
 package com.example.user_service.controller;
 
+import com.example.common_library.security.GatewayHeaders;
 import com.example.user_service.config.JwtService;
 import com.example.user_service.dto.AuthRequest;
 import com.example.user_service.dto.AuthResponse;
 import com.example.user_service.model.User;
 import com.example.user_service.service.AuthService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -15,10 +17,13 @@ public class AuthController {
 
     private final AuthService authService;
     private final JwtService jwtService;
+    private final String gatewaySecret;
 
-    public AuthController(AuthService authService, JwtService jwtService) {
+    public AuthController(AuthService authService, JwtService jwtService,
+                          @Value("${gateway.internal-secret:}") String gatewaySecret) {
         this.authService = authService;
         this.jwtService = jwtService;
+        this.gatewaySecret = gatewaySecret;
     }
 
     @PostMapping("/login")
@@ -29,8 +34,15 @@ public class AuthController {
     }
 
     @GetMapping("/me")
-    public ResponseEntity<User> getMe(@RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader) {
-        User user = authService.getUserFromToken(authHeader, jwtService);
+    public ResponseEntity<User> getMe(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authHeader,
+            @RequestHeader(value = GatewayHeaders.USER_ID, required = false) Long gatewayUserId,
+            @RequestHeader(value = GatewayHeaders.SECRET, required = false) String providedSecret) {
+        // Qua gateway (đúng secret nội bộ): token đã được kiểm tra, lấy user theo id thay vì parse lại token.
+        // Gọi thẳng vào service thì X-User-Id không đáng tin, phải kiểm tra token.
+        User user = gatewayUserId != null && GatewayHeaders.isFromGateway(providedSecret, gatewaySecret)
+                ? authService.getUserById(gatewayUserId)
+                : authService.getUserFromToken(authHeader, jwtService);
         return ResponseEntity.ok(user);
     }
 }
@@ -1,5 +1,8 @@
 package com.example.user_service.controller;
 
+import com.example.common_library.cache.CacheStats;
+import com.example.common_library.dto.BalanceBatchRequest;
+import com.example.common_library.dto.BalanceBatchResult;
 import com.example.user_service.dto.DeductBalanceRequest;
 import com.example.user_service.dto.UserResponse;
 import com.example.user_service.service.UserService;
@@ -7,6 +10,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
@@ -18,6 +25,23 @@ public class UserController {
         this.userService = userService;
     }
 
+    // Số liệu cache thông tin user: hit, miss, số phần tử bị đẩy ra
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CacheStats> getProfileCacheStats() {
+        return ResponseEntity.ok(userService.getProfileCacheStats());
+    }
+
+    // Lấy nhiều user trong một lần gọi, trả về map id -> user
+    @GetMapping("/batch")
+    public ResponseEntity<Map<Long, UserResponse>> getUsersByIds(@RequestParam("ids") Set<Long> ids) {
+        return ResponseEntity.ok(userService.getUsersByIds(ids));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<Map<Long, UserResponse>> getUsersByIdsPost(@RequestBody Set<Long> ids) {
+        return ResponseEntity.ok(userService.getUsersByIds(ids));
+    }
+
     @GetMapping("/{userId}")
     public ResponseEntity<UserResponse> getUserById(@PathVariable("userId") Long userId) {
         UserResponse userResponse = userService.getUserById(userId);
@@ -26,7 +50,7 @@ public class UserController {
 
     @PostMapping("/{userId}/deduct-balance")
     public ResponseEntity<Void> deductBalance(@PathVariable("userId") Long userId, @RequestBody DeductBalanceRequest request) {
-        userService.deductBalance(userId, request.getAmount());
+        userService.deductBalance(userId, request.getPaymentId(), request.getAmount());
         return ResponseEntity.ok().build();
     }
 
@@ -34,7 +58,7 @@ public class UserController {
     public ResponseEntity<Void> reserveBalance(
             @PathVariable("userId") Long userId,
             @RequestBody DeductBalanceRequest request) {
-        userService.reserveBalance(userId, request.getAmount());
+        userService.reserveBalance(userId, request.getPaymentId(), request.getAmount());
         return ResponseEntity.ok().build();
     }
 
@@ -42,7 +66,14 @@ public class UserController {
     public ResponseEntity<Void> releaseBalance(
             @PathVariable("userId") Long userId,
             @RequestBody DeductBalanceRequest request) {
-        userService.releaseReservedBalance(userId, request.getAmount());
+        userService.releaseReservedBalance(userId, request.getPaymentId());
         return ResponseEntity.ok().build();
     }
+
+    // Nhiều thao tác reserve/release/deduct trong một transaction
+    @PostMapping("/balance/batch")
+    public ResponseEntity<List<BalanceBatchResult>> applyBalanceBatch(@RequestBody BalanceBatchRequest request) {
+        List<BalanceBatchResult> results = userService.applyBalanceBatch(request.getEntries());
+        return ResponseEntity.ok(results);
+    }
 }
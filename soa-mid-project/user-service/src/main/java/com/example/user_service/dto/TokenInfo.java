@@ -0,0 +1,18 @@
+package com.example.user_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+// Thông tin lấy ra từ JWT sau một lần parse và kiểm tra chữ ký
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenInfo {
+    private String username;
+    private Long userId;
+    private String role;
+    private Date expiresAt;
+}
@@ -0,0 +1,7 @@
+package com.example.user_service.model;
+
+public enum ReservationStatus {
+    RESERVED,   // Đang khóa, tính vào số tiền chờ xử lý
+    RELEASED,   // Đã giải phóng (OTP hết hạn, giao dịch lỗi)
+    CAPTURED    // Đã trừ vào số dư
+}
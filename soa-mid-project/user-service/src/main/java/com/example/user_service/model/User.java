@@ -1,5 +1,6 @@
 package com.example.user_service.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -20,6 +21,8 @@ public class User {
     @Column(unique = true, nullable = false, length = 50)
     private String username;
     
+    // Không bao giờ trả hash mật khẩu ra JSON (vd. /api/auth/me)
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     @Column(nullable = false)
     private String password;
     
@@ -34,16 +37,13 @@ public class User {
     
     @Column(precision = 10, scale = 2)
     private BigDecimal balance = BigDecimal.ZERO;
-    
-    @Column(name = "pending_amount")
-    private BigDecimal pendingAmount = BigDecimal.ZERO;
+
+    // Tăng mỗi lần số dư hoặc reservation của user thay đổi (chế độ optimistic locking)
+    @Version
+    @Column(nullable = false)
+    private Long version = 0L;
     
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 10)
     private Role role = Role.USER;
-
-    // Phương thức kiểm tra số dư thực
-    public BigDecimal getAvailableBalance() {
-        return this.balance.subtract(pendingAmount);
-    }
 }
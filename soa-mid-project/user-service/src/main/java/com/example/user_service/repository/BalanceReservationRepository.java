@@ -0,0 +1,36 @@
+package com.example.user_service.repository;
+
+import com.example.user_service.model.BalanceReservation;
+import com.example.user_service.model.ReservationStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.LockModeType;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BalanceReservationRepository extends JpaRepository<BalanceReservation, Long> {
+
+    Optional<BalanceReservation> findByPaymentId(Long paymentId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM BalanceReservation r WHERE r.paymentId = :paymentId")
+    Optional<BalanceReservation> findByPaymentIdForUpdate(@Param("paymentId") Long paymentId);
+
+    // Khóa nhiều reservation trong một câu truy vấn, theo thứ tự id tăng dần để tránh deadlock giữa các batch
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM BalanceReservation r WHERE r.paymentId IN :paymentIds ORDER BY r.id")
+    List<BalanceReservation> findAllByPaymentIdInForUpdate(@Param("paymentIds") Collection<Long> paymentIds);
+
+    // Tổng số tiền đang khóa của user (thay cho cột pending_amount)
+    @Query("SELECT COALESCE(SUM(r.amount), 0) FROM BalanceReservation r " +
+           "WHERE r.userId = :userId AND r.status = :status")
+    BigDecimal sumAmountByUserIdAndStatus(@Param("userId") Long userId,
+                                          @Param("status") ReservationStatus status);
+}
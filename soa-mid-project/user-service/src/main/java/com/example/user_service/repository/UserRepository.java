@@ -1,20 +1,76 @@
 package com.example.user_service.repository;
 
+import com.example.user_service.dto.UserResponse;
+import com.example.user_service.model.ReservationStatus;
 import com.example.user_service.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.LockModeType;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
+
+    // Chỉ đọc các cột cần cho UserResponse (không đọc password); pendingAmount lấy từ bảng reservation
+    @Query("SELECT new com.example.user_service.dto.UserResponse(u.id, u.username, u.email, u.fullName, u.phone, u.balance, " +
+           "(SELECT COALESCE(SUM(r.amount), 0) FROM BalanceReservation r WHERE r.userId = u.id AND r.status = :status)) " +
+           "FROM User u WHERE u.id = :userId")
+    Optional<UserResponse> findUserResponseById(@Param("userId") Long userId,
+                                                @Param("status") ReservationStatus status);
+
+    @Query("SELECT new com.example.user_service.dto.UserResponse(u.id, u.username, u.email, u.fullName, u.phone, u.balance, " +
+           "(SELECT COALESCE(SUM(r.amount), 0) FROM BalanceReservation r WHERE r.userId = u.id AND r.status = :status)) " +
+           "FROM User u WHERE u.id IN :userIds")
+    List<UserResponse> findUserResponsesByIds(@Param("userIds") Collection<Long> userIds,
+                                              @Param("status") ReservationStatus status);
     
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT u FROM User u WHERE u.id = :userId")
     Optional<User> findByIdForUpdate(@Param("userId") Long userId);
+
+    // Khóa nhiều user theo thứ tự id tăng dần
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM User u WHERE u.id IN :userIds ORDER BY u.id")
+    List<User> findAllByIdForUpdate(@Param("userIds") Collection<Long> userIds);
+
+    // Lưu hash mới khi đăng nhập (nâng cấp cost hoặc chuyển từ plaintext); trả về 0 nếu password đã bị đổi
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.password = :newPassword WHERE u.id = :userId AND u.password = :oldPassword")
+    int updatePasswordIfUnchanged(@Param("userId") Long userId,
+                                  @Param("oldPassword") String oldPassword,
+                                  @Param("newPassword") String newPassword);
+
+    // Đường khóa dòng: reservation mới không làm user "dirty" nên phải tự tăng version,
+    // để reserve optimistic đã đọc tổng reservation trước đó không commit được
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.version = u.version + 1 WHERE u.id IN :userIds")
+    int incrementVersions(@Param("userIds") Collection<Long> userIds);
+
+    // Các câu cập nhật có điều kiện cho chế độ optimistic; trả về 0 nếu điều kiện không còn đúng.
+    // clearAutomatically để lần thử lại đọc user mới từ DB thay vì bản cũ trong persistence context.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.version = u.version + 1 WHERE u.id = :userId AND u.version = :version")
+    int incrementVersion(@Param("userId") Long userId, @Param("version") Long version);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.balance = u.balance - :amount, u.version = u.version + 1 " +
+           "WHERE u.id = :userId AND u.version = :version AND u.balance >= :amount")
+    int debitIfVersion(@Param("userId") Long userId, @Param("version") Long version,
+                       @Param("amount") BigDecimal amount);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.balance = u.balance - :amount, u.version = u.version + 1 " +
+           "WHERE u.id = :userId AND u.balance >= :amount")
+    int debit(@Param("userId") Long userId, @Param("amount") BigDecimal amount);
 }
@@ -15,4 +15,6 @@ public interface AuthService {
 
     User getUserFromToken(String authHeader, JwtService jwtService);
 
+    User getUserById(Long userId);
+
 }
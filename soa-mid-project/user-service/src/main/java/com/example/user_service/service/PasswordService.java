@@ -0,0 +1,11 @@
+package com.example.user_service.service;
+
+import com.example.user_service.model.User;
+
+public interface PasswordService {
+
+    // So khớp mật khẩu, nếu đúng mà hash cũ (plaintext hoặc khác cost hiện tại) thì hash lại và lưu
+    boolean verifyAndUpgrade(User user, String rawPassword);
+
+    String hash(String rawPassword);
+}
@@ -1,10 +1,16 @@
 package com.example.user_service.service;
 
+import com.example.common_library.cache.CacheStats;
+import com.example.common_library.dto.BalanceBatchEntry;
+import com.example.common_library.dto.BalanceBatchResult;
 import com.example.user_service.dto.UserResponse;
 import com.example.user_service.model.User;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -14,9 +20,18 @@ public interface UserService {
     
     UserResponse getUserById(Long userId);
 
-    void deductBalance(Long userId, BigDecimal amount);
+    // Id không tồn tại sẽ không có trong map kết quả
+    Map<Long, UserResponse> getUsersByIds(Collection<Long> userIds);
 
-    void reserveBalance(Long userId, BigDecimal amount);
+    // paymentId null: trừ trực tiếp; ngược lại trừ theo reservation của payment
+    void deductBalance(Long userId, Long paymentId, BigDecimal amount);
 
-    void releaseReservedBalance(Long userId, BigDecimal amount);
+    void reserveBalance(Long userId, Long paymentId, BigDecimal amount);
+
+    void releaseReservedBalance(Long userId, Long paymentId);
+
+    // Áp dụng nhiều thao tác số dư trong một transaction, trả về kết quả từng entry
+    List<BalanceBatchResult> applyBalanceBatch(List<BalanceBatchEntry> entries);
+
+    CacheStats getProfileCacheStats();
 }
@@ -6,6 +6,7 @@ import com.example.user_service.config.JwtService;
 import com.example.user_service.model.User;
 import com.example.user_service.repository.UserRepository;
 import com.example.user_service.service.AuthService;
+import com.example.user_service.service.PasswordService;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
@@ -14,10 +15,12 @@ import java.util.Optional;
 public class AuthServiceImp implements AuthService {
 
     private final UserRepository userRepository;
+    private final PasswordService passwordService;
 
 
-    public AuthServiceImp(UserRepository userRepository) {
+    public AuthServiceImp(UserRepository userRepository, PasswordService passwordService) {
         this.userRepository = userRepository;
+        this.passwordService = passwordService;
     }
 
     @Override
@@ -35,16 +38,25 @@ public class AuthServiceImp implements AuthService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new ApiException(ErrorCode.USER_NOT_FOUND));
 
-        if (!user.getPassword().equals(password)) {
+        if (!passwordService.verifyAndUpgrade(user, password)) {
             throw new ApiException(ErrorCode.INVALID_CREDENTIALS);
         }
         return user;
     }
 
+    @Override
+    public User getUserById(Long userId) {
+        return userRepository.findById(userId)
+                .orElseThrow(() -> new ApiException(ErrorCode.USER_NOT_FOUND));
+    }
+
     @Override
     public User getUserFromToken(String authHeader, JwtService jwtService) {
+        if (authHeader == null) {
+            throw new ApiException(ErrorCode.INVALID_CREDENTIALS, "Missing token");
+        }
         String token = authHeader.replace("Bearer ", "");
-        String username = jwtService.extractUsername(token);
+        String username = jwtService.validate(token).getUsername();
         return userRepository.findByUsername(username)
                 .orElseThrow(() -> new ApiException(ErrorCode.USER_NOT_FOUND));
     }
@@ -0,0 +1,130 @@
+package com.example.user_service.service.impl;
+
+import com.example.common_library.exception.ApiException;
+import com.example.common_library.exception.ErrorCode;
+import com.example.user_service.model.User;
+import com.example.user_service.repository.UserRepository;
+import com.example.user_service.service.PasswordService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt chạy trên pool passwordHashExecutor, nhưng thread request (Tomcat) vẫn đứng chờ kết quả
+ * qua future.get nên mỗi lần hash vẫn chiếm một thread Tomcat trong suốt thời gian đó.
+ * Semaphore giới hạn số thread request được phép chờ cùng lúc (user.password.max-concurrent-hashes);
+ * vượt quá thì trả SERVICE_BUSY ngay, để đăng nhập dồn dập không chiếm hết thread Tomcat.
+ */
+@Service
+public class PasswordServiceImpl implements PasswordService {
+
+    // $2a$10$... -> cost = 10
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("^\\$2[aby]?\\$(\\d{2})\\$.{53}$");
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolTaskExecutor hashExecutor;
+    private final UserRepository userRepository;
+    private final int bcryptCost;
+    private final long hashTimeoutMs;
+    private final Semaphore hashPermits;
+
+    public PasswordServiceImpl(PasswordEncoder passwordEncoder,
+                               @Qualifier("passwordHashExecutor") ThreadPoolTaskExecutor hashExecutor,
+                               UserRepository userRepository,
+                               @Value("${user.password.bcrypt-cost:10}") int bcryptCost,
+                               @Value("${user.password.hash-timeout-ms:5000}") long hashTimeoutMs,
+                               @Value("${user.password.max-concurrent-hashes:16}") int maxConcurrentHashes) {
+        this.passwordEncoder = passwordEncoder;
+        this.hashExecutor = hashExecutor;
+        this.userRepository = userRepository;
+        this.bcryptCost = bcryptCost;
+        this.hashTimeoutMs = hashTimeoutMs;
+        this.hashPermits = new Semaphore(maxConcurrentHashes);
+    }
+
+    @Override
+    public boolean verifyAndUpgrade(User user, String rawPassword) {
+        String stored = user.getPassword();
+        if (stored == null) {
+            return false;
+        }
+
+        Integer storedCost = bcryptCost(stored);
+        boolean matches = storedCost != null
+                ? runOnHashPool(() -> passwordEncoder.matches(rawPassword, stored))
+                // Dữ liệu cũ còn lưu plaintext (data.sql): so sánh thời gian hằng
+                : MessageDigest.isEqual(stored.getBytes(StandardCharsets.UTF_8),
+                                        rawPassword.getBytes(StandardCharsets.UTF_8));
+
+        if (matches && (storedCost == null || storedCost != bcryptCost)) {
+            // Nâng cấp hash là phụ: lỗi (pool bận, timeout, DB) không được làm hỏng lần đăng nhập hợp lệ
+            try {
+                String upgraded = hash(rawPassword);
+                // Chỉ ghi nếu password chưa bị đổi bởi request khác trong lúc hash
+                if (userRepository.updatePasswordIfUnchanged(user.getId(), stored, upgraded) > 0) {
+                    user.setPassword(upgraded);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Skipped password rehash for user " + user.getId() + ": " + e.getMessage());
+            }
+        }
+        return matches;
+    }
+
+    @Override
+    public String hash(String rawPassword) {
+        return runOnHashPool(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    private static Integer bcryptCost(String stored) {
+        Matcher matcher = BCRYPT_PATTERN.matcher(stored);
+        return matcher.matches() ? Integer.valueOf(matcher.group(1)) : null;
+    }
+
+    // Chặn thread gọi đến khi hash xong (tối đa hashTimeoutMs); không lấy được permit thì từ chối ngay
+    private <T> T runOnHashPool(Callable<T> task) {
+        if (!hashPermits.tryAcquire()) {
+            throw new ApiException(ErrorCode.SERVICE_BUSY);
+        }
+        try {
+            return awaitOnHashPool(task);
+        } finally {
+            hashPermits.release();
+        }
+    }
+
+    private <T> T awaitOnHashPool(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = hashExecutor.submit(task);
+        } catch (TaskRejectedException e) {
+            throw new ApiException(ErrorCode.SERVICE_BUSY);
+        }
+        try {
+            return future.get(hashTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ApiException(ErrorCode.SERVICE_BUSY);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new ApiException(ErrorCode.SERVICE_BUSY);
+        } catch (ExecutionException e) {
+            throw new ApiException(ErrorCode.INTERNAL_ERROR, e.getCause().getMessage());
+        }
+    }
+}
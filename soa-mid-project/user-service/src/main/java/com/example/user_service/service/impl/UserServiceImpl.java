@@ -1,26 +1,87 @@
 package com.example.user_service.service.impl;
 
+import com.example.common_library.cache.CacheStats;
+import com.example.common_library.cache.TtlCache;
+import com.example.common_library.dto.BalanceBatchEntry;
+import com.example.common_library.dto.BalanceBatchResult;
+import com.example.common_library.dto.BalanceOperation;
 import com.example.common_library.exception.ApiException;
 import com.example.common_library.exception.ErrorCode;
-import com.example.user_service.config.JwtService;
 import com.example.user_service.dto.UserResponse;
+import com.example.user_service.model.BalanceReservation;
+import com.example.user_service.model.ReservationStatus;
 import com.example.user_service.model.User;
+import com.example.user_service.repository.BalanceReservationRepository;
 import com.example.user_service.repository.UserRepository;
 import com.example.user_service.service.UserService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * Số tiền đang chờ xử lý được tính từ bảng balance_reservation (mỗi payment một dòng)
+ * thay vì cột pending_amount. Release và capture nhắm vào payment id và gọi lại nhiều lần vẫn an toàn.
+ * Reserve và deduct có hai chế độ (user.balance.optimistic-locking):
+ * - false: khóa dòng user bằng SELECT ... FOR UPDATE trong thời gian ngắn (READ COMMITTED)
+ * - true: không khóa, cập nhật có điều kiện theo cột version và thử lại khi bị tranh chấp
+ * Release chỉ khóa dòng reservation, batch luôn dùng khóa dòng theo thứ tự id.
+ */
 @Service
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
+    private final BalanceReservationRepository reservationRepository;
+    private final TransactionTemplate transactionTemplate;
 
-    public UserServiceImpl(UserRepository userRepository) {
+    // Số id tối đa trong một câu IN khi lấy user theo lô
+    private static final int BATCH_LOOKUP_CHUNK_SIZE = 500;
+
+    // Số entry tối đa trong một lần gọi batch
+    @Value("${user.balance-batch.max-entries:1000}")
+    private int maxBatchEntries;
+
+    // Số id tối đa trong một lần gọi /api/users/batch
+    @Value("${user.batch-lookup.max-ids:2000}")
+    private int maxBatchLookupIds;
+
+    // true: reserve/deduct dùng cập nhật có điều kiện theo version thay vì khóa dòng user
+    @Value("${user.balance.optimistic-locking:false}")
+    private boolean optimisticLocking;
+
+    // Số lần thử tối đa khi version của user đã bị thay đổi bởi giao dịch khác
+    @Value("${user.balance.max-retries:5}")
+    private int maxRetries;
+
+    // Cache UserResponse theo id; bị xóa mỗi khi số dư hoặc reservation của user thay đổi
+    private final TtlCache<Long, UserResponse> profileCache;
+
+    public UserServiceImpl(UserRepository userRepository,
+                           BalanceReservationRepository reservationRepository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${user.profile-cache.max-size:10000}") int profileCacheMaxSize,
+                           @Value("${user.profile-cache.ttl-seconds:30}") long profileCacheTtlSeconds) {
         this.userRepository = userRepository;
+        this.reservationRepository = reservationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.profileCache = new TtlCache<>(profileCacheMaxSize, Duration.ofSeconds(profileCacheTtlSeconds));
     }
 
     @Override
@@ -30,13 +91,55 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public UserResponse getUserById(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ApiException(ErrorCode.USER_NOT_FOUND));
-        
-        return convertToUserResponse(user);
+        UserResponse cached = profileCache.get(userId, id ->
+                userRepository.findUserResponseById(id, ReservationStatus.RESERVED).orElse(null));
+        if (cached == null) {
+            throw new ApiException(ErrorCode.USER_NOT_FOUND);
+        }
+        return copyOf(cached);
     }
-    
-    private UserResponse convertToUserResponse(User user) {
+
+    @Override
+    public Map<Long, UserResponse> getUsersByIds(Collection<Long> userIds) {
+        Map<Long, UserResponse> result = new LinkedHashMap<>();
+        if (userIds == null || userIds.isEmpty()) {
+            return result;
+        }
+        if (userIds.size() > maxBatchLookupIds) {
+            throw new ApiException(ErrorCode.BAD_REQUEST,
+                "Tối đa " + maxBatchLookupIds + " id mỗi lần gọi");
+        }
+
+        // Lấy từ cache trước, phần còn lại đọc bằng câu IN theo từng nhóm
+        List<Long> missing = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(userIds)) {
+            if (id == null) {
+                continue;
+            }
+            UserResponse cached = profileCache.get(id);
+            if (cached != null) {
+                result.put(id, copyOf(cached));
+            } else {
+                missing.add(id);
+            }
+        }
+        for (int from = 0; from < missing.size(); from += BATCH_LOOKUP_CHUNK_SIZE) {
+            List<Long> chunk = missing.subList(from, Math.min(from + BATCH_LOOKUP_CHUNK_SIZE, missing.size()));
+            for (UserResponse user : userRepository.findUserResponsesByIds(chunk, ReservationStatus.RESERVED)) {
+                profileCache.put(user.getId(), user);
+                result.put(user.getId(), copyOf(user));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public CacheStats getProfileCacheStats() {
+        return profileCache.stats();
+    }
+
+    // Trả bản sao để người gọi không sửa được đối tượng đang nằm trong cache
+    private UserResponse copyOf(UserResponse user) {
         return UserResponse.builder()
                 .id(user.getId())
                 .username(user.getUsername())
@@ -44,61 +147,326 @@ public class UserServiceImpl implements UserService {
                 .fullName(user.getFullName())
                 .phone(user.getPhone())
                 .balance(user.getBalance())
-                .pendingAmount(user.getPendingAmount() != null ? user.getPendingAmount() : BigDecimal.ZERO)
+                .pendingAmount(user.getPendingAmount())
                 .build();
     }
 
-    @Transactional(isolation = Isolation.SERIALIZABLE)
-    public void reserveBalance(Long userId, BigDecimal amount) {
-        User user = userRepository.findByIdForUpdate(userId)
-            .orElseThrow(() -> new ApiException(ErrorCode.USER_NOT_FOUND));
-        
-        BigDecimal availableBalance = user.getBalance().subtract(user.getPendingAmount());
+    // Cache thông tin user chỉ bị xóa sau khi transaction kết thúc, tránh request khác nạp lại dữ liệu chưa commit
+    @Override
+    public void reserveBalance(Long userId, Long paymentId, BigDecimal amount) {
+        try {
+            if (optimisticLocking) {
+                retryOnConflict(() -> {
+                    User user = userRepository.findById(userId)
+                        .orElseThrow(() -> new ApiException(ErrorCode.USER_NOT_FOUND));
+                    // Tăng version để reserve song song của cùng user phải đọc lại tổng reservation
+                    if (applyReserve(user, paymentId, amount)
+                            && userRepository.incrementVersion(userId, user.getVersion()) == 0) {
+                        throw new OptimisticLockingFailureException("User " + userId + " was modified concurrently");
+                    }
+                });
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                User user = userRepository.findByIdForUpdate(userId)
+                    .orElseThrow(() -> new ApiException(ErrorCode.USER_NOT_FOUND));
+                if (applyReserve(user, paymentId, amount)) {
+                    userRepository.incrementVersions(List.of(userId));
+                }
+            });
+        } finally {
+            profileCache.invalidate(userId);
+        }
+    }
+
+    @Override
+    public void releaseReservedBalance(Long userId, Long paymentId) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> applyRelease(userId, paymentId, Map.of()));
+        } finally {
+            profileCache.invalidate(userId);
+        }
+    }
+
+    @Override
+    public void deductBalance(Long userId, Long paymentId, BigDecimal amount) {
+        try {
+            if (optimisticLocking) {
+                retryOnConflict(() -> applyDeductOptimistic(userId, paymentId, amount));
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                User user = userRepository.findByIdForUpdate(userId)
+                    .orElseThrow(() -> new ApiException(ErrorCode.USER_NOT_FOUND));
+                applyDeduct(user, paymentId, amount, Map.of());
+                userRepository.save(user);
+            });
+        } finally {
+            profileCache.invalidate(userId);
+        }
+    }
+
+    @Override
+    public List<BalanceBatchResult> applyBalanceBatch(List<BalanceBatchEntry> entries) {
+        if (entries == null || entries.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (entries.size() > maxBatchEntries) {
+            throw new ApiException(ErrorCode.BAD_REQUEST,
+                "Batch vượt quá " + maxBatchEntries + " entries");
+        }
+        try {
+            return transactionTemplate.execute(status -> applyBatchEntries(entries));
+        } finally {
+            for (BalanceBatchEntry entry : entries) {
+                if (entry.getUserId() != null) {
+                    profileCache.invalidate(entry.getUserId());
+                }
+            }
+        }
+    }
+
+    private List<BalanceBatchResult> applyBatchEntries(List<BalanceBatchEntry> entries) {
+
+        // Khóa trước mọi dòng batch sẽ đụng tới, luôn theo cùng một thứ tự như các đường đơn lẻ:
+        // user (kể cả user của RELEASE) theo id tăng dần, rồi reservation theo id tăng dần.
+        // Không khóa từng dòng theo thứ tự trong request, để hai batch chồng nhau không deadlock.
+        Set<Long> userIds = new TreeSet<>();
+        Set<Long> paymentIds = new TreeSet<>();
+        for (BalanceBatchEntry entry : entries) {
+            if (entry.getUserId() != null && entry.getOperation() != null) {
+                userIds.add(entry.getUserId());
+            }
+            if (entry.getPaymentId() != null && (entry.getOperation() == BalanceOperation.RELEASE
+                    || entry.getOperation() == BalanceOperation.DEDUCT)) {
+                paymentIds.add(entry.getPaymentId());
+            }
+        }
+        Map<Long, User> users = new HashMap<>();
+        if (!userIds.isEmpty()) {
+            for (User user : userRepository.findAllByIdForUpdate(userIds)) {
+                users.put(user.getId(), user);
+            }
+        }
+        Map<Long, BalanceReservation> reservations = new HashMap<>();
+        if (!paymentIds.isEmpty()) {
+            for (BalanceReservation reservation : reservationRepository.findAllByPaymentIdInForUpdate(paymentIds)) {
+                reservations.put(reservation.getPaymentId(), reservation);
+            }
+        }
+
+        // Áp dụng theo thứ tự trong request; entry lỗi không ảnh hưởng các entry còn lại
+        List<BalanceBatchResult> results = new ArrayList<>(entries.size());
+        Set<Long> reservedUserIds = new TreeSet<>();
+        for (int i = 0; i < entries.size(); i++) {
+            BalanceBatchEntry entry = entries.get(i);
+            BalanceBatchResult result = new BalanceBatchResult(i, entry.getUserId(), entry.getOperation(), true, null, null);
+            try {
+                applyEntry(users, reservations, entry, reservedUserIds);
+            } catch (ApiException e) {
+                result.setSuccess(false);
+                result.setErrorCode(e.getErrorCode().name());
+                result.setMessage(e.getMessage());
+            }
+            results.add(result);
+        }
+
+        // DEDUCT đổi balance nên Hibernate tự tăng version khi flush; RESERVE thì phải tăng thủ công
+        userRepository.saveAll(users.values());
+        if (!reservedUserIds.isEmpty()) {
+            userRepository.incrementVersions(reservedUserIds);
+        }
+        return results;
+    }
+
+    private void applyEntry(Map<Long, User> users, Map<Long, BalanceReservation> reservations,
+                            BalanceBatchEntry entry, Set<Long> reservedUserIds) {
+        if (entry.getOperation() == null) {
+            throw new ApiException(ErrorCode.BAD_REQUEST, "Thiếu operation");
+        }
+        switch (entry.getOperation()) {
+            case RESERVE -> {
+                if (applyReserve(lockedUser(users, entry.getUserId()), entry.getPaymentId(), entry.getAmount())) {
+                    reservedUserIds.add(entry.getUserId());
+                }
+            }
+            case RELEASE -> applyRelease(entry.getUserId(), entry.getPaymentId(), reservations);
+            case DEDUCT -> applyDeduct(lockedUser(users, entry.getUserId()), entry.getPaymentId(), entry.getAmount(),
+                reservations);
+        }
+    }
+
+    private User lockedUser(Map<Long, User> users, Long userId) {
+        User user = users.get(userId);
+        if (user == null) {
+            throw new ApiException(ErrorCode.USER_NOT_FOUND);
+        }
+        return user;
+    }
+
+    // Trả về true nếu tạo reservation mới; khi đó người gọi phải tăng version của user sau khi ghi
+    // (cả ở đường khóa dòng, vì reserve optimistic song song chỉ dựa vào version để phát hiện xung đột).
+    private boolean applyReserve(User user, Long paymentId, BigDecimal amount) {
+        requirePaymentId(paymentId);
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new ApiException(ErrorCode.BAD_REQUEST, "Số tiền không hợp lệ");
+        }
+
+        Optional<BalanceReservation> existing = reservationRepository.findByPaymentId(paymentId);
+        if (existing.isPresent()) {
+            BalanceReservation reservation = existing.get();
+            if (!reservation.getUserId().equals(user.getId())
+                    || reservation.getStatus() == ReservationStatus.RELEASED) {
+                throw new ApiException(ErrorCode.RESERVATION_CONFLICT,
+                    "Payment " + paymentId + " đã có reservation ở trạng thái " + reservation.getStatus());
+            }
+            return false; // Gọi lại cho cùng payment: đã khóa rồi
+        }
+
+        BigDecimal availableBalance = user.getBalance().subtract(reservedAmount(user.getId()));
         if (availableBalance.compareTo(amount) < 0) {
-            throw new ApiException(ErrorCode.INSUFFICIENT_BALANCE, 
+            throw new ApiException(ErrorCode.INSUFFICIENT_BALANCE,
                 "Số dư khả dụng không đủ. Bạn có giao dịch đang chờ xử lý.");
         }
-        
-        user.setPendingAmount(user.getPendingAmount().add(amount));
-        userRepository.save(user);
-    }
-    
-    @Transactional(isolation = Isolation.SERIALIZABLE)
-    public void releaseReservedBalance(Long userId, BigDecimal amount) {
-        User user = userRepository.findByIdForUpdate(userId)
-            .orElseThrow(() -> new ApiException(ErrorCode.USER_NOT_FOUND));
-            
-        BigDecimal newPendingAmount = user.getPendingAmount().subtract(amount);
-        if (newPendingAmount.compareTo(BigDecimal.ZERO) < 0) {
-            newPendingAmount = BigDecimal.ZERO;
-        }
-        
-        user.setPendingAmount(newPendingAmount);
-        userRepository.save(user);
-    }
-    
-    @Transactional(isolation = Isolation.SERIALIZABLE)
-    public void deductBalance(Long userId, BigDecimal amount) {
-        User user = userRepository.findByIdForUpdate(userId)
-            .orElseThrow(() -> new ApiException(ErrorCode.USER_NOT_FOUND));
-            
-        if (user.getBalance().compareTo(amount) < 0) {
+
+        BalanceReservation reservation = new BalanceReservation();
+        reservation.setPaymentId(paymentId);
+        reservation.setUserId(user.getId());
+        reservation.setAmount(amount);
+        reservation.setStatus(ReservationStatus.RESERVED);
+        reservationRepository.save(reservation);
+        return true;
+    }
+
+    // Không có reservation hoặc đã RELEASED/CAPTURED thì bỏ qua
+    private void applyRelease(Long userId, Long paymentId, Map<Long, BalanceReservation> lockedReservations) {
+        requirePaymentId(paymentId);
+        Optional<BalanceReservation> existing = lockReservation(paymentId, lockedReservations);
+        if (existing.isEmpty()) {
+            return;
+        }
+        BalanceReservation reservation = existing.get();
+        if (!reservation.getUserId().equals(userId)) {
+            throw new ApiException(ErrorCode.RESERVATION_CONFLICT,
+                "Payment " + paymentId + " không thuộc user " + userId);
+        }
+        if (reservation.getStatus() == ReservationStatus.RESERVED) {
+            reservation.setStatus(ReservationStatus.RELEASED);
+            reservationRepository.save(reservation);
+        }
+    }
+
+    // Có paymentId: trừ đúng số tiền đã khóa và chuyển reservation sang CAPTURED.
+    // Không có paymentId: trừ trực tiếp trên số dư khả dụng.
+    private void applyDeduct(User user, Long paymentId, BigDecimal amount,
+                             Map<Long, BalanceReservation> lockedReservations) {
+        if (paymentId == null) {
+            requireAvailable(user, amount);
+            user.setBalance(user.getBalance().subtract(amount));
+            return;
+        }
+
+        BalanceReservation reservation = reservationToCapture(user.getId(), paymentId, lockedReservations);
+        if (reservation == null) {
+            return; // Đã trừ tiền trước đó
+        }
+        if (user.getBalance().compareTo(reservation.getAmount()) < 0) {
             throw new ApiException(ErrorCode.INSUFFICIENT_BALANCE);
         }
-        
-        // Trừ số dư
-        user.setBalance(user.getBalance().subtract(amount));
-        
-        // Giảm số tiền đang chờ xử lý
-        BigDecimal newPendingAmount = user.getPendingAmount().subtract(amount);
-        if (newPendingAmount.compareTo(BigDecimal.ZERO) < 0) {
-            newPendingAmount = BigDecimal.ZERO;
+
+        // Trừ số dư; số tiền chờ xử lý tự giảm vì reservation không còn RESERVED
+        user.setBalance(user.getBalance().subtract(reservation.getAmount()));
+        reservation.setStatus(ReservationStatus.CAPTURED);
+        reservationRepository.save(reservation);
+    }
+
+    // Như applyDeduct nhưng trừ số dư bằng một câu UPDATE có điều kiện, không khóa dòng user trước
+    private void applyDeductOptimistic(Long userId, Long paymentId, BigDecimal amount) {
+        if (paymentId == null) {
+            User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ApiException(ErrorCode.USER_NOT_FOUND));
+            requireAvailable(user, amount);
+            if (userRepository.debitIfVersion(userId, user.getVersion(), amount) == 0) {
+                throw new OptimisticLockingFailureException("User " + userId + " was modified concurrently");
+            }
+            return;
+        }
+
+        // Dòng reservation đã bị khóa nên capture song song của cùng payment chờ nhau
+        BalanceReservation reservation = reservationToCapture(userId, paymentId, Map.of());
+        if (reservation == null) {
+            return;
+        }
+        reservation.setStatus(ReservationStatus.CAPTURED);
+        reservationRepository.saveAndFlush(reservation);
+        if (userRepository.debit(userId, reservation.getAmount()) == 0) {
+            throw new ApiException(ErrorCode.INSUFFICIENT_BALANCE);
         }
-        user.setPendingAmount(newPendingAmount);
-        
-        userRepository.save(user);
     }
 
-}
+    // Trả về null nếu reservation đã CAPTURED
+    private BalanceReservation reservationToCapture(Long userId, Long paymentId,
+                                                    Map<Long, BalanceReservation> lockedReservations) {
+        BalanceReservation reservation = lockReservation(paymentId, lockedReservations)
+            .orElseThrow(() -> new ApiException(ErrorCode.RESERVATION_NOT_FOUND));
+        if (!reservation.getUserId().equals(userId)) {
+            throw new ApiException(ErrorCode.RESERVATION_CONFLICT,
+                "Payment " + paymentId + " không thuộc user " + userId);
+        }
+        if (reservation.getStatus() == ReservationStatus.CAPTURED) {
+            return null;
+        }
+        if (reservation.getStatus() == ReservationStatus.RELEASED) {
+            throw new ApiException(ErrorCode.RESERVATION_CONFLICT,
+                "Reservation của payment " + paymentId + " đã được giải phóng");
+        }
+        return reservation;
+    }
+
+    // Dùng dòng batch đã khóa sẵn; nếu không có (đường đơn lẻ, hoặc reservation vừa tạo trong cùng batch) thì khóa ngay
+    private Optional<BalanceReservation> lockReservation(Long paymentId,
+                                                         Map<Long, BalanceReservation> lockedReservations) {
+        BalanceReservation locked = lockedReservations.get(paymentId);
+        return locked != null ? Optional.of(locked) : reservationRepository.findByPaymentIdForUpdate(paymentId);
+    }
+
+    private void requireAvailable(User user, BigDecimal amount) {
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new ApiException(ErrorCode.BAD_REQUEST, "Số tiền không hợp lệ");
+        }
+        BigDecimal availableBalance = user.getBalance().subtract(reservedAmount(user.getId()));
+        if (availableBalance.compareTo(amount) < 0) {
+            throw new ApiException(ErrorCode.INSUFFICIENT_BALANCE);
+        }
+    }
+
+    // Mỗi lần thử chạy trong transaction riêng; hết số lần thử thì báo lỗi cho client thử lại sau
+    private void retryOnConflict(Runnable attempt) {
+        for (int i = 1; ; i++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> attempt.run());
+                return;
+            } catch (OptimisticLockingFailureException e) {
+                if (i >= maxRetries) {
+                    throw new ApiException(ErrorCode.BALANCE_CONFLICT);
+                }
+                try {
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(1, 5L * i + 1));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new ApiException(ErrorCode.BALANCE_CONFLICT);
+                }
+            }
+        }
+    }
 
+    private BigDecimal reservedAmount(Long userId) {
+        return reservationRepository.sumAmountByUserIdAndStatus(userId, ReservationStatus.RESERVED);
+    }
 
+    private void requirePaymentId(Long paymentId) {
+        if (paymentId == null) {
+            throw new ApiException(ErrorCode.BAD_REQUEST, "Thiếu paymentId");
+        }
+    }
+}
@@ -1,6 +1,7 @@
 CREATE DATABASE IF NOT EXISTS user_db;
 USE user_db;
 
+DROP TABLE IF EXISTS balance_reservation;
 DROP TABLE IF EXISTS user;
 
 CREATE TABLE user (
@@ -11,6 +12,18 @@ CREATE TABLE user (
     full_name VARCHAR(100),
     phone VARCHAR(20),
     balance DECIMAL(10,2) DEFAULT 0.00,
-    pending_amount DECIMAL(10,2) DEFAULT 0.00,
+    version BIGINT NOT NULL DEFAULT 0,      -- Optimistic locking cho số dư
     role VARCHAR(10) NOT NULL DEFAULT 'USER'  -- Đổi từ ENUM thành VARCHAR
 );
+
+-- Số tiền đang khóa theo từng payment; số dư khả dụng = balance - SUM(amount) của các dòng RESERVED
+CREATE TABLE balance_reservation (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    payment_id BIGINT NOT NULL UNIQUE,
+    user_id BIGINT NOT NULL,
+    amount DECIMAL(10,2) NOT NULL,
+    status VARCHAR(20) NOT NULL,        -- RESERVED, RELEASED, CAPTURED
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    INDEX idx_reservation_user_status (user_id, status)
+);
@@ -0,0 +1,92 @@
+package com.example.user_service.config;
+
+import com.example.user_service.dto.TokenInfo;
+import com.example.user_service.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Benchmark thông lượng kiểm tra JWT, không chạy trong mvn test mặc định (tên lớp không kết thúc bằng Test).
+// Chạy: mvn -B test -pl user-service -Dtest=JwtServiceBenchmark
+class JwtServiceBenchmark {
+
+    private static final String SECRET = "mysupersecretkeymysupersecretkeymysupersecretkeymysupersecretkey123456";
+    private static final int WARMUP_MS = 3000;
+    private static final int MEASURE_MS = 5000;
+
+    @Test
+    void validateThroughput() {
+        JwtService jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "SECRET_KEY", SECRET);
+        jwtService.init();
+
+        User user = new User();
+        user.setId(42L);
+        user.setUsername("benchmark");
+        String token = jwtService.generateToken(user);
+
+        // Trước: mỗi lần lấy claim tạo lại key và parser, validateToken parse hai lần (username + expiration)
+        Supplier<String> before = () -> {
+            String username = extractClaimPerCall(token, Claims::getSubject);
+            boolean expired = extractClaimPerCall(token, Claims::getExpiration).before(new Date());
+            return expired ? null : username;
+        };
+        // Sau: key và parser dùng chung, parse một lần
+        Supplier<String> after = () -> {
+            TokenInfo info = jwtService.validate(token);
+            return info.getUsername();
+        };
+
+        assertThat(before.get()).isEqualTo("benchmark");
+        assertThat(after.get()).isEqualTo("benchmark");
+
+        double beforeOps = measure("before (key + parser per call, 2 parses)", before);
+        double afterOps = measure("after  (shared parser, 1 parse)", after);
+        System.out.printf("JwtService.validate speedup: %.2fx%n", afterOps / beforeOps);
+    }
+
+    private static <T> T extractClaimPerCall(String token, Function<Claims, T> resolver) {
+        Key key = Keys.hmacShaKeyFor(SECRET.getBytes());
+        Claims claims = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+        return resolver.apply(claims);
+    }
+
+    private static double measure(String label, Supplier<String> op) {
+        run(op, WARMUP_MS);
+        long start = System.nanoTime();
+        long ops = run(op, MEASURE_MS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double opsPerSec = ops / seconds;
+        System.out.printf("%-45s %,12.0f ops/s  (%.2f us/op)%n", label, opsPerSec, 1e6 / opsPerSec);
+        return opsPerSec;
+    }
+
+    private static long run(Supplier<String> op, long durationMs) {
+        long deadline = System.nanoTime() + durationMs * 1_000_000L;
+        long ops = 0;
+        int sink = 0;
+        while (System.nanoTime() < deadline) {
+            for (int i = 0; i < 100; i++) {
+                sink += op.get().length();
+            }
+            ops += 100;
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+        return ops;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.user_service.service.impl;
+
+import com.example.user_service.config.ExecutorConfig;
+import com.example.user_service.model.User;
+import com.example.user_service.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Benchmark thông lượng đăng nhập (verifyAndUpgrade) theo BCrypt cost 8..12, không cần DB.
+// Không chạy trong mvn test mặc định. Chạy: mvn -B test -pl user-service -Dtest=PasswordServiceBenchmark
+class PasswordServiceBenchmark {
+
+    private static final String PASSWORD = "benchmark-password";
+    private static final int HASH_POOL_SIZE = 4;
+    private static final int CLIENT_THREADS = 16;
+    private static final long WARMUP_MS = 1000;
+    private static final long MEASURE_MS = 5000;
+
+    @Test
+    void verifyThroughputByCost() throws Exception {
+        System.out.printf("CPUs=%d hashPool=%d clients=%d%n",
+            Runtime.getRuntime().availableProcessors(), HASH_POOL_SIZE, CLIENT_THREADS);
+        System.out.printf("%-5s %12s %10s %10s%n", "cost", "logins/s", "p50 ms", "p99 ms");
+        for (int cost = 8; cost <= 12; cost++) {
+            runCost(cost);
+        }
+    }
+
+    private void runCost(int cost) throws Exception {
+        ThreadPoolTaskExecutor hashExecutor = hashExecutor();
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+        PasswordServiceImpl passwordService = new PasswordServiceImpl(
+            encoder, hashExecutor, userRepository, cost, 60_000, CLIENT_THREADS);
+        // Hash đã đúng cost hiện tại nên không có bước nâng cấp, chỉ đo một lần matches
+        String stored = encoder.encode(PASSWORD);
+
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENT_THREADS);
+        try {
+            runClients(clients, passwordService, stored, WARMUP_MS);
+            long start = System.nanoTime();
+            List<long[]> perThread = runClients(clients, passwordService, stored, MEASURE_MS);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            long[] latencies = perThread.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            assertThat(latencies).isNotEmpty();
+            System.out.printf("%-5d %12.1f %10.1f %10.1f%n", cost, latencies.length / seconds,
+                percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6);
+        } finally {
+            clients.shutdownNow();
+            hashExecutor.shutdown();
+        }
+        Mockito.verifyNoInteractions(userRepository);
+    }
+
+    private List<long[]> runClients(ExecutorService clients, PasswordServiceImpl passwordService,
+                                    String stored, long durationMs) throws Exception {
+        long deadline = System.nanoTime() + durationMs * 1_000_000L;
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < CLIENT_THREADS; t++) {
+            futures.add(clients.submit(() -> {
+                User user = new User();
+                user.setId(1L);
+                user.setPassword(stored);
+                long[] samples = new long[1024];
+                int count = 0;
+                while (System.nanoTime() < deadline) {
+                    long begin = System.nanoTime();
+                    if (!passwordService.verifyAndUpgrade(user, PASSWORD)) {
+                        throw new IllegalStateException("Password did not match");
+                    }
+                    if (count == samples.length) {
+                        samples = Arrays.copyOf(samples, count * 2);
+                    }
+                    samples[count++] = System.nanoTime() - begin;
+                }
+                return Arrays.copyOf(samples, count);
+            }));
+        }
+        List<long[]> results = new ArrayList<>();
+        for (Future<long[]> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+
+    // Cùng cấu hình với bean passwordHashExecutor
+    private static ThreadPoolTaskExecutor hashExecutor() {
+        ExecutorConfig config = new ExecutorConfig();
+        ReflectionTestUtils.setField(config, "hashPoolSize", HASH_POOL_SIZE);
+        ReflectionTestUtils.setField(config, "hashQueueCapacity", 100);
+        return config.passwordHashExecutor();
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
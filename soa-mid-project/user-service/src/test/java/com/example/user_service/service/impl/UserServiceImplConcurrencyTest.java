@@ -0,0 +1,134 @@
+package com.example.user_service.service.impl;
+
+import com.example.common_library.dto.BalanceBatchEntry;
+import com.example.common_library.dto.BalanceBatchResult;
+import com.example.common_library.dto.BalanceOperation;
+import com.example.common_library.exception.ApiException;
+import com.example.user_service.model.ReservationStatus;
+import com.example.user_service.model.User;
+import com.example.user_service.repository.BalanceReservationRepository;
+import com.example.user_service.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Chế độ optimistic chạy cùng lúc với batch (luôn khóa dòng user) trên cùng một user
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:user_balance;MODE=MySQL;NON_KEYWORDS=USER,VALUE;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.sql.init.mode=never",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "user.balance.optimistic-locking=true",
+    "user.balance.max-retries=100"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(UserServiceImpl.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserServiceImplConcurrencyTest {
+
+    private static final AtomicLong PAYMENT_IDS = new AtomicLong(1000);
+
+    @Autowired
+    private UserServiceImpl userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BalanceReservationRepository reservationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long userId;
+
+    @BeforeEach
+    void createUser() {
+        reservationRepository.deleteAll();
+        userRepository.deleteAll();
+        User user = new User();
+        user.setUsername("race");
+        user.setPassword("x");
+        user.setBalance(new BigDecimal("100.00"));
+        userId = userRepository.save(user).getId();
+    }
+
+    @Test
+    void batchReserveBumpsVersionSoStaleOptimisticAttemptIsRejected() {
+        Long versionBefore = userRepository.findById(userId).orElseThrow().getVersion();
+
+        List<BalanceBatchResult> results = userService.applyBalanceBatch(List.of(
+            entry(PAYMENT_IDS.incrementAndGet(), "60", BalanceOperation.RESERVE)));
+        assertThat(results.get(0).isSuccess()).isTrue();
+
+        // Reserve optimistic đã đọc tổng reservation với version cũ không được commit
+        Integer updated = new TransactionTemplate(transactionManager)
+            .execute(status -> userRepository.incrementVersion(userId, versionBefore));
+        assertThat(updated).isZero();
+        assertThat(userRepository.findById(userId).orElseThrow().getVersion()).isGreaterThan(versionBefore);
+    }
+
+    @Test
+    void concurrentOptimisticAndBatchReservesNeverExceedBalance() throws Exception {
+        int attempts = 40;
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < attempts; i++) {
+            long paymentId = PAYMENT_IDS.incrementAndGet();
+            boolean viaBatch = i % 2 == 0;
+            futures.add(pool.submit(() -> {
+                start.await();
+                if (viaBatch) {
+                    userService.applyBalanceBatch(List.of(entry(paymentId, "10", BalanceOperation.RESERVE)));
+                } else {
+                    try {
+                        userService.reserveBalance(userId, paymentId, new BigDecimal("10"));
+                    } catch (ApiException e) {
+                        // INSUFFICIENT_BALANCE hoặc BALANCE_CONFLICT: không tạo reservation
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        BigDecimal reserved = reservationRepository.sumAmountByUserIdAndStatus(userId, ReservationStatus.RESERVED);
+        assertThat(reserved).isLessThanOrEqualTo(new BigDecimal("100.00"));
+        assertThat(reserved).isEqualByComparingTo("100");
+    }
+
+    private BalanceBatchEntry entry(long paymentId, String amount, BalanceOperation operation) {
+        BalanceBatchEntry entry = new BalanceBatchEntry();
+        entry.setUserId(userId);
+        entry.setPaymentId(paymentId);
+        entry.setAmount(new BigDecimal(amount));
+        entry.setOperation(operation);
+        return entry;
+    }
+}
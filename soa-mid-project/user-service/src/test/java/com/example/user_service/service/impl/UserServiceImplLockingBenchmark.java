@@ -0,0 +1,130 @@
+package com.example.user_service.service.impl;
+
+import com.example.common_library.exception.ApiException;
+import com.example.common_library.exception.ErrorCode;
+import com.example.user_service.model.User;
+import com.example.user_service.repository.BalanceReservationRepository;
+import com.example.user_service.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * So sánh thông lượng reserveBalance với user.balance.optimistic-locking=false (SELECT ... FOR UPDATE)
+ * và true (cập nhật theo version, thử lại khi xung đột) khi nhiều thread cùng thao tác trên một user.
+ * Không chạy trong mvn test mặc định. Chạy: mvn -B test -pl user-service -Dtest=UserServiceImplLockingBenchmark
+ *
+ * Số đo trên H2 chỉ để so sánh tương đối hai chế độ, không dùng để dự đoán số của MySQL:
+ * H2 in-memory không có độ trễ mạng và ghi log, nên thời gian giữ khóa dòng và khoảng hở giữa
+ * lúc đọc version và lúc cập nhật đều ngắn hơn nhiều so với InnoDB; khóa dòng của H2 cũng không có
+ * gap lock hay phát hiện deadlock như InnoDB. Trên MySQL cả hai chế độ chậm hơn và tỉ lệ xung đột
+ * của chế độ optimistic cao hơn, nên cần đo lại bằng cùng lớp này với datasource trỏ tới MySQL.
+ */
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:user_locking_bench;MODE=MySQL;NON_KEYWORDS=USER,VALUE;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.datasource.hikari.maximum-pool-size=40",
+    "spring.sql.init.mode=never",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "user.balance.max-retries=5"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(UserServiceImpl.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserServiceImplLockingBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 8, 32};
+    private static final long WARMUP_MS = 1000;
+    private static final long MEASURE_MS = 3000;
+    private static final AtomicLong PAYMENT_IDS = new AtomicLong(1_000_000);
+
+    @Autowired
+    private UserServiceImpl userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BalanceReservationRepository reservationRepository;
+
+    @Test
+    void reserveThroughputOnOneUser() throws Exception {
+        // Làm nóng JIT và pool kết nối cho cả hai chế độ trước khi đo
+        for (boolean optimistic : new boolean[] {false, true}) {
+            ReflectionTestUtils.setField(userService, "optimisticLocking", optimistic);
+            run(createUser(), 8, WARMUP_MS * 3);
+        }
+        System.out.printf("%-12s %8s %12s %12s%n", "mode", "threads", "reserves/s", "conflicts");
+        for (int threads : THREAD_COUNTS) {
+            for (boolean optimistic : new boolean[] {false, true}) {
+                ReflectionTestUtils.setField(userService, "optimisticLocking", optimistic);
+                Long userId = createUser();
+                run(userId, threads, WARMUP_MS);
+                Long measuredUserId = createUser();
+                long start = System.nanoTime();
+                long[] counts = run(measuredUserId, threads, MEASURE_MS);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("%-12s %8d %12.0f %12d%n", optimistic ? "optimistic" : "pessimistic",
+                    threads, counts[0] / seconds, counts[1]);
+                assertThat(counts[0]).isPositive();
+            }
+        }
+    }
+
+    // Trả về {số reserve thành công, số lần hết lượt thử với BALANCE_CONFLICT}
+    private long[] run(Long userId, int threads, long durationMs) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long deadline = System.nanoTime() + durationMs * 1_000_000L;
+        AtomicLong succeeded = new AtomicLong();
+        AtomicLong conflicts = new AtomicLong();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    try {
+                        userService.reserveBalance(userId, PAYMENT_IDS.incrementAndGet(), BigDecimal.ONE);
+                        succeeded.incrementAndGet();
+                    } catch (ApiException e) {
+                        if (e.getErrorCode() != ErrorCode.BALANCE_CONFLICT) {
+                            throw e;
+                        }
+                        conflicts.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+        return new long[] {succeeded.get(), conflicts.get()};
+    }
+
+    // User mới cho mỗi lần chạy để tổng reservation của các lần trước không làm chậm câu SUM
+    private Long createUser() {
+        reservationRepository.deleteAllInBatch();
+        User user = new User();
+        user.setUsername("bench-" + PAYMENT_IDS.incrementAndGet());
+        user.setPassword("x");
+        user.setBalance(new BigDecimal("10000000"));
+        return userRepository.save(user).getId();
+    }
+}